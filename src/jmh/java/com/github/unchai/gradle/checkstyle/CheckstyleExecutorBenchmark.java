@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CheckstyleExecutorBenchmark {
+    private static final String CONFIG_LOCATION = "/sun_checks.xml";
+    private static final int LINES_PER_FILE = 200;
+
+    @Param({"10", "100", "800"})
+    private int files;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private Path baseDir;
+    private List<ChangedFile> changedFiles;
+
+    @Setup
+    public void setUp() throws IOException {
+        baseDir = Files.createTempDirectory("checkstyle-github-benchmark");
+        changedFiles = new ArrayList<>(files);
+
+        for (int i = 0; i < files; i++) {
+            final String path = String.format("src/main/java/generated/p%d/Generated%d.java", i % 10, i);
+            final Path file = baseDir.resolve(path);
+
+            Files.createDirectories(file.getParent());
+            Files.write(file, buildSource(i).getBytes(StandardCharsets.UTF_8));
+
+            final RangeLinePositionIndex.Builder builder = new RangeLinePositionIndex.Builder();
+            for (int line = 1; line <= LINES_PER_FILE; line++) {
+                builder.add(line, line);
+            }
+
+            final ChangedFile changedFile = new ChangedFile();
+            changedFile.setPath(path);
+            changedFile.setLinePositionIndex(builder.build());
+            changedFiles.add(changedFile);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(baseDir)) {
+            walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public List<CheckstyleError> execute() {
+        return new CheckstyleExecutor(CONFIG_LOCATION, parallelism).execute(baseDir.toString(), changedFiles);
+    }
+
+    private String buildSource(int index) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("package generated.p").append(index % 10).append(";\n\n");
+        builder.append("public class Generated").append(index).append(" {\n");
+
+        for (int i = 0; i < 30; i++) {
+            builder.append("    private int field").append(i).append(" = ").append(i * 7).append(";\n\n");
+            builder.append("    public int method").append(i).append("(int value) {\n");
+            builder.append("        if (value > ").append(i).append(") { return value*field").append(i).append("; }\n");
+            builder.append("        return value + ").append(i).append(";\n");
+            builder.append("    }\n\n");
+        }
+
+        builder.append("}\n");
+        return builder.toString();
+    }
+}
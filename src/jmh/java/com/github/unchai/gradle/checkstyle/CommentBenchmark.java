@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommentBenchmark {
+    private static final int LINES_PER_FILE = 500;
+    private static final int FILES = 200;
+
+    @Param({"1000", "100000"})
+    private int violations;
+
+    private Map<String, ChangedFile> changedFileMap;
+    private ViolationStore errors;
+
+    @Setup
+    public void setUp() {
+        changedFileMap = new HashMap<>();
+
+        for (int i = 0; i < FILES; i++) {
+            final RangeLinePositionIndex.Builder builder = new RangeLinePositionIndex.Builder();
+
+            for (int line = 1; line <= LINES_PER_FILE; line++) {
+                builder.add(line, line + 1);
+            }
+
+            final ChangedFile changedFile = new ChangedFile();
+            changedFile.setPath(path(i));
+            changedFile.setLinePositionIndex(builder.build());
+
+            changedFileMap.put(changedFile.getPath(), changedFile);
+        }
+
+        final Severity[] severityLevels = Severity.values();
+        errors = new ViolationStore();
+
+        for (int i = 0; i < violations; i++) {
+            errors.add(
+                severityLevels[i % severityLevels.length],
+                path(i % FILES),
+                1 + (i / FILES) % LINES_PER_FILE,
+                "'" + i + "' is a magic number.",
+                "MagicNumberCheck"
+            );
+        }
+    }
+
+    @Benchmark
+    public Collection<Comment> buildComments() {
+        return CheckstyleGithubTask.buildComments(changedFileMap, errors);
+    }
+
+    @Benchmark
+    public Map<Severity, Integer> buildSeverityLevelCountMap() {
+        return CheckstyleGithubTask.buildSeverityLevelCountMap(errors);
+    }
+
+    private static String path(int index) {
+        return "src/main/java/generated/Generated" + index + ".java";
+    }
+}
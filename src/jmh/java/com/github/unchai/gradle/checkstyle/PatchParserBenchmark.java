@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PatchParserBenchmark {
+    @Param({"100", "10000", "1000000"})
+    private int lines;
+
+    private String patch;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder();
+        int oldLine = 1;
+        int newLine = 1;
+
+        for (int i = 0; i < lines; i += 20) {
+            // 3 removed, 6 added and 11 kept lines
+            builder.append(String.format("@@ -%d,14 +%d,17 @@ public class Generated {\n", oldLine, newLine));
+
+            for (int j = 0; j < 20; j++) {
+                switch (j % 7) {
+                    case 0:
+                        builder.append("-        int removed = ").append(j).append(";\n");
+                        break;
+                    case 1:
+                    case 2:
+                        builder.append("+        int added = ").append(j).append(";\n");
+                        break;
+                    default:
+                        builder.append("         int kept = ").append(j).append(";\n");
+                }
+            }
+
+            oldLine += 40;
+            newLine += 43;
+        }
+
+        patch = builder.toString();
+    }
+
+    @Benchmark
+    public LinePositionIndex parsePatch() {
+        return GithubHelper.parsePatch(patch);
+    }
+}
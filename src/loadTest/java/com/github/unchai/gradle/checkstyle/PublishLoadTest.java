@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// run with 'gradlew loadTest -DloadTest.files=3000 -DloadTest.latencyMillis=50'
+public class PublishLoadTest {
+    private static final Logger LOGGER = Logging.getLogger(PublishLoadTest.class);
+    private static final String REPOSITORY = "owner/repo";
+    private static final int PULL_REQUEST = 1;
+    // github-api lists pull request files with github's default page size
+    private static final int FILES_PAGE_SIZE = 30;
+    private static final String CHECKSTYLE_XML = "<?xml version=\"1.0\"?>\n"
+        + "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\""
+        + " \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n"
+        + "<module name=\"Checker\">\n"
+        + "    <module name=\"TreeWalker\">\n"
+        + "        <module name=\"MagicNumber\"/>\n"
+        + "    </module>\n"
+        + "</module>\n";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final int files = Integer.getInteger("loadTest.files", 3000);
+    private final int violationsPerFile = Integer.getInteger("loadTest.violationsPerFile", 2);
+    private final int latencyMillis = Integer.getInteger("loadTest.latencyMillis", 20);
+    private final int failEvery = Integer.getInteger("loadTest.failEvery", 0);
+    private final String publisher = System.getProperty("loadTest.publisher", "comments");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeGithubServer server;
+    private File projectDir;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeGithubServer(REPOSITORY, PULL_REQUEST);
+        projectDir = temporaryFolder.newFolder("project");
+
+        write("settings.gradle", "rootProject.name = 'load-test'\n");
+        write("checkstyle.xml", CHECKSTYLE_XML);
+        write("build.gradle", "plugins { id 'com.github.unchai.checkstyle-github' }\n"
+            + "repositories { mavenCentral() }\n"
+            + "checkstyleGithub {\n"
+            + "    ghEndpoint = '" + server.getEndpoint() + "'\n"
+            + "    ghRepository = '" + REPOSITORY + "'\n"
+            + "    configLocation = 'checkstyle.xml'\n"
+            + "    publisher = '" + publisher + "'\n"
+            + "    cacheEnabled = false\n"
+            + "    httpCacheEnabled = false\n"
+            + "}\n");
+
+        for (int i = 0; i < files; i++) {
+            final List<String> lines = new ArrayList<>();
+            lines.add("package load;");
+            lines.add("");
+            lines.add("public class Load" + i + " {");
+
+            for (int v = 0; v < violationsPerFile; v++) {
+                lines.add("    int value" + v + "() { return " + (100 + v) + "; }");
+            }
+
+            lines.add("}");
+
+            final String path = "src/main/java/load/Load" + i + ".java";
+            write(path, String.join("\n", lines) + "\n");
+            server.addFile(path, "added", FakeGithubServer.addedPatch(lines));
+        }
+
+        server.setLatencyMillis(latencyMillis);
+        server.setFailEvery(failEvery);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void publishLargePullRequest() throws IOException {
+        final long started = System.nanoTime();
+
+        final BuildResult result = GradleRunner.create()
+            .withProjectDir(projectDir)
+            .withPluginClasspath()
+            .withArguments(
+                "checkstyleGithub",
+                "--githubOAuth=token",
+                "--githubPullRequest=" + PULL_REQUEST,
+                "--stacktrace"
+            )
+            .forwardOutput()
+            .build();
+
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(result.task(":checkstyleGithub").getOutcome(), is(TaskOutcome.SUCCESS));
+        assertThat(server.getCallCount("GET /repos/owner/repo/pulls/{id}/files"), is((files + FILES_PAGE_SIZE - 1) / FILES_PAGE_SIZE));
+
+        if ("checks".equals(publisher)) {
+            assertThat(server.getAnnotationCount(), is(files * violationsPerFile));
+        } else {
+            assertThat(server.getCommentCount(), is(files * violationsPerFile));
+            assertThat(server.getStatuses().get(server.getStatuses().size() - 1), is("failure"));
+        }
+
+        writeReport(elapsedMillis);
+    }
+
+    private void writeReport(long elapsedMillis) throws IOException {
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("files", files);
+        report.put("violationsPerFile", violationsPerFile);
+        report.put("latencyMillis", latencyMillis);
+        report.put("failEvery", failEvery);
+        report.put("publisher", publisher);
+        report.put("wallTimeMillis", elapsedMillis);
+        report.put("filesPerSecond", files * 1000.0 / Math.max(1, elapsedMillis));
+        report.put("apiCalls", server.getTotalCallCount());
+        report.put("apiCallsByRoute", server.getCallCounts());
+        report.put("injectedErrors", server.getInjectedErrorCount());
+
+        final Map<String, JsonNode> tasks = new LinkedHashMap<>();
+        final File[] metricsFiles = new File(projectDir, "build/" + ReportFiles.METRICS).listFiles();
+
+        if (metricsFiles != null) {
+            for (File metricsFile : metricsFiles) {
+                tasks.put(metricsFile.getName().replace(".json", ""), mapper.readTree(metricsFile));
+            }
+        }
+
+        report.put("tasks", tasks);
+
+        final File reportFile = new File(System.getProperty("loadTest.reportDir", "build/reports/load-test"), "publish.json");
+        reportFile.getParentFile().mkdirs();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        LOGGER.lifecycle("load test report: {}", reportFile.getAbsolutePath());
+    }
+
+    private void write(String path, String content) throws IOException {
+        final File file = new File(projectDir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.gradle.api.GradleException;
+
+final class Background {
+    private Background() {
+    }
+
+    static <T> Future<T> start(Callable<T> action) {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            return executor.submit(action);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static Future<?> start(Runnable action) {
+        return start(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GradleException) {
+                throw (GradleException)e.getCause();
+            }
+
+            throw new GradleException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+}
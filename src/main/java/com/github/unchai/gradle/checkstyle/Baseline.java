@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.gradle.api.GradleException;
+
+final class Baseline {
+    private Baseline() {
+    }
+
+    // head violations without a counterpart in the base version of the file
+    static List<CheckstyleError> newViolations(
+        List<CheckstyleError> headErrors,
+        File headFile,
+        List<CheckstyleError> baseErrors,
+        File baseFile) {
+
+        if (headErrors.isEmpty() || baseErrors.isEmpty()) {
+            return headErrors;
+        }
+
+        final Map<String, Integer> existing = new HashMap<>();
+        final String[] baseLines = lines(baseFile);
+
+        for (CheckstyleError error : baseErrors) {
+            existing.merge(fingerprint(error, baseLines), 1, Integer::sum);
+        }
+
+        final List<CheckstyleError> introduced = new ArrayList<>();
+        final String[] headLines = lines(headFile);
+
+        for (CheckstyleError error : headErrors) {
+            final String fingerprint = fingerprint(error, headLines);
+            final int count = existing.getOrDefault(fingerprint, 0);
+
+            if (count > 0) {
+                existing.put(fingerprint, count - 1);
+            } else {
+                introduced.add(error);
+            }
+        }
+
+        return introduced;
+    }
+
+    // rule, message and the trimmed text of the line, so moved or re-indented code keeps its fingerprint
+    // and edits next to an old violation don't make it look new
+    static String fingerprint(CheckstyleError error, String[] lines) {
+        final MessageDigest digest = Digests.sha256();
+        Digests.update(digest, String.valueOf(error.getSource()));
+        Digests.update(digest, error.getMessage());
+        Digests.update(digest, error.getLine() > 0 && error.getLine() <= lines.length ? lines[error.getLine() - 1].trim() : "");
+        return Digests.hex(digest.digest());
+    }
+
+    private static String[] lines(File file) {
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).split("\\r?\\n", -1);
+        } catch (IOException e) {
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+}
@@ -18,12 +18,13 @@
  */
 package com.github.unchai.gradle.checkstyle;
 
-import java.util.Map;
-
 import lombok.Data;
 
 @Data
 public class ChangedFile {
     private String path;
-    private Map<Integer, Integer> linePositionMap;
+    private String basePath;
+    private String baseBlob;
+    private String contentHash;
+    private LinePositionIndex linePositionIndex;
 }
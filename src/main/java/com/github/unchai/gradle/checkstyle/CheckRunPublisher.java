@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.gradle.api.GradleException;
+import org.kohsuke.github.GHRateLimit;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.HttpException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// the check runs api only accepts github app installation tokens, oauth and personal access tokens get a 403
+class CheckRunPublisher {
+    static final int ANNOTATIONS_PER_REQUEST = 50;
+
+    private static final String NAME = "checkstyle";
+    private static final String ACCEPT = "application/vnd.github.antiope-preview+json";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final GitHub github;
+    private final String oauthToken;
+    private final String repository;
+    private final String headSha;
+
+    CheckRunPublisher(GitHub github, String oauthToken, String repository, String headSha) {
+        this.github = github;
+        this.oauthToken = oauthToken;
+        this.repository = repository;
+        this.headSha = headSha;
+    }
+
+    int publish(ViolationStore errors, Map<Severity, Integer> severityLevelCountMap, PublishScheduler scheduler) {
+        final int warnings = severityLevelCountMap.get(Severity.WARNING);
+        final int failures = severityLevelCountMap.get(Severity.ERROR);
+        final String title = String.format("reported %d warnings, %d errors.", warnings, failures);
+
+        final ObjectNode create = MAPPER.createObjectNode()
+            .put("name", NAME)
+            .put("head_sha", headSha)
+            .put("status", "in_progress");
+
+        final JsonNode[] checkRun = new JsonNode[1];
+        scheduler.run(Collections.singletonList(() -> checkRun[0] = send("POST", "/check-runs", create, scheduler)));
+
+        final String path = "/check-runs/" + checkRun[0].get("id").asText();
+
+        // the last batch goes out with the completing update
+        final int last = Math.max(0, (errors.size() - 1) / ANNOTATIONS_PER_REQUEST * ANNOTATIONS_PER_REQUEST);
+        final List<PublishScheduler.Request> updates = new ArrayList<>();
+
+        for (int from = 0; from < last; from += ANNOTATIONS_PER_REQUEST) {
+            final ObjectNode update = MAPPER.createObjectNode();
+            update.set("output", output(title, errors, from, from + ANNOTATIONS_PER_REQUEST));
+            updates.add(() -> send("PATCH", path, update, scheduler));
+        }
+
+        scheduler.run(updates);
+
+        final ObjectNode complete = MAPPER.createObjectNode()
+            .put("status", "completed")
+            .put("conclusion", warnings > 0 || failures > 0 ? "failure" : "success");
+        complete.set("output", output(title, errors, last, errors.size()));
+
+        scheduler.run(Collections.singletonList(() -> send("PATCH", path, complete, scheduler)));
+
+        return 2 + updates.size();
+    }
+
+    private static ObjectNode output(String title, ViolationStore errors, int from, int to) {
+        final ObjectNode output = MAPPER.createObjectNode()
+            .put("title", title)
+            .put("summary", "checkstyle " + title);
+
+        final ArrayNode annotations = output.putArray("annotations");
+
+        for (int i = from; i < to; i++) {
+            annotations.addObject()
+                .put("path", errors.getPath(i))
+                .put("start_line", errors.getLine(i))
+                .put("end_line", errors.getLine(i))
+                .put("annotation_level", level(errors.getSeverity(i)))
+                .put("title", errors.getSource(i))
+                .put("message", errors.getMessage(i));
+        }
+
+        return output;
+    }
+
+    private static String level(Severity severity) {
+        switch (severity) {
+            case ERROR:
+                return "failure";
+            case WARNING:
+                return "warning";
+            default:
+                return "notice";
+        }
+    }
+
+    private JsonNode send(String method, String path, ObjectNode body, PublishScheduler scheduler) throws IOException {
+        final URL url = new URL(github.getApiUrl() + "/repos/" + repository + path);
+        final HttpURLConnection connection = github.getConnector().connect(url);
+
+        try {
+            connection.setRequestMethod(method);
+        } catch (ProtocolException e) {
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("X-HTTP-Method-Override", method);
+        }
+
+        connection.setRequestProperty("Authorization", "token " + oauthToken);
+        connection.setRequestProperty("Accept", ACCEPT);
+        connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+        connection.setDoOutput(true);
+
+        try (OutputStream out = connection.getOutputStream()) {
+            MAPPER.writeValue(out, body);
+        }
+
+        final int code = connection.getResponseCode();
+        final GHRateLimit.Record rateLimit = rateLimit(connection);
+
+        if (rateLimit != null) {
+            scheduler.observeRateLimit(rateLimit);
+        }
+
+        if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
+            final String retryAfter = connection.getHeaderField("Retry-After");
+            final String message = read(connection.getErrorStream());
+
+            if (code == HttpURLConnection.HTTP_FORBIDDEN && retryAfter != null) {
+                throw new PublishScheduler.SecondaryLimitException(
+                    TimeUnit.SECONDS.toMillis(NumberUtils.toLong(retryAfter)),
+                    new HttpException(message, code, connection.getResponseMessage(), url.toString())
+                );
+            }
+
+            if (code == HttpURLConnection.HTTP_FORBIDDEN) {
+                throw new GradleException(String.format(
+                    "github refused to %s %s (%s). publisher = \"checks\" needs a GitHub App installation token "
+                        + "with the checks:write permission as GITHUB_TOKEN or --githubOAuth, oauth and personal access "
+                        + "tokens can't create check runs.",
+                    method,
+                    url,
+                    message
+                ));
+            }
+
+            throw new HttpException(message, code, connection.getResponseMessage(), url.toString());
+        }
+
+        try (InputStream in = connection.getInputStream()) {
+            return MAPPER.readTree(in);
+        }
+    }
+
+    private static GHRateLimit.Record rateLimit(HttpURLConnection connection) {
+        final int limit = NumberUtils.toInt(connection.getHeaderField("X-RateLimit-Limit"), -1);
+        final int remaining = NumberUtils.toInt(connection.getHeaderField("X-RateLimit-Remaining"), -1);
+        final long reset = NumberUtils.toLong(connection.getHeaderField("X-RateLimit-Reset"), -1);
+
+        return limit < 0 || remaining < 0 || reset < 0 ? null : new GHRateLimit.Record(limit, remaining, reset);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.joining("\n"));
+        }
+    }
+}
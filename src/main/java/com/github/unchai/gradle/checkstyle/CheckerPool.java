@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.gradle.api.GradleException;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.ModuleFactory;
+import com.puppycrawl.tools.checkstyle.PackageObjectFactory;
+import com.puppycrawl.tools.checkstyle.PropertiesExpander;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AbstractFileSetCheck;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.FileSetCheck;
+
+public class CheckerPool implements AutoCloseable {
+    // rulesets kept loaded at once, the least recently used one is dropped with its idle workers
+    private static final int MAX_CONFIGURATIONS = 8;
+    // built-in file set checks that remember the files they saw in processFiltered, without ever forgetting them
+    private static final Set<String> STATEFUL_CHECKS = Collections.singleton(
+        "com.puppycrawl.tools.checkstyle.checks.javadoc.JavadocPackageCheck"
+    );
+
+    // by location in access order, guarded by this
+    private final Map<String, LoadedConfiguration> configurations = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, Queue<Worker>> idleWorkers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> keepsStateAcrossFiles = new ConcurrentHashMap<>();
+
+    Configuration configuration(String configLocation) {
+        return load(configLocation).configuration;
+    }
+
+    // file set checks reporting in finishProcessing (TranslationCheck, ...) compare the files of one process() call
+    // with each other, and JavadocPackageCheck reports each directory once per checker, so they give other results
+    // when the files are spread over several checkers. checks from other jars are taken as such, there is no telling
+    boolean keepsStateAcrossFiles(String configLocation, ClassLoader classLoader) {
+        return keepsStateAcrossFiles(load(configLocation), classLoader);
+    }
+
+    private boolean keepsStateAcrossFiles(LoadedConfiguration loaded, ClassLoader classLoader) {
+        return keepsStateAcrossFiles.computeIfAbsent(loaded.key, key -> {
+            final ModuleFactory moduleFactory = new PackageObjectFactory(Checker.class.getPackage().getName(), classLoader);
+
+            try {
+                for (Configuration child : loaded.configuration.getChildren()) {
+                    final Object module = moduleFactory.createModule(child.getName());
+
+                    if (module instanceof FileSetCheck && !(module instanceof TreeWalker) && keepsState(module.getClass())) {
+                        return true;
+                    }
+                }
+            } catch (CheckstyleException e) {
+                throw new GradleException(e.getMessage(), e);
+            }
+
+            return false;
+        });
+    }
+
+    Worker borrow(String configLocation, ClassLoader classLoader) throws CheckstyleException {
+        final LoadedConfiguration loaded = load(configLocation);
+
+        // their checkers would carry what they saw into the next run, so they are used once and destroyed
+        if (keepsStateAcrossFiles(loaded, classLoader)) {
+            return new Worker(loaded.key, loaded.configuration, classLoader, false);
+        }
+
+        final Queue<Worker> workers = idleWorkers.get(loaded.key);
+        final Worker worker = workers == null ? null : workers.poll();
+
+        if (worker != null) {
+            return worker;
+        }
+
+        return new Worker(loaded.key, loaded.configuration, classLoader, true);
+    }
+
+    void release(Worker worker) {
+        synchronized (this) {
+            if (worker.reusable && configurations.values().stream().anyMatch(loaded -> loaded.key.equals(worker.key))) {
+                idleWorkers.computeIfAbsent(worker.key, key -> new ConcurrentLinkedQueue<>()).add(worker);
+                return;
+            }
+        }
+
+        // its ruleset keeps state, or was edited or dropped while it was checking
+        worker.destroy();
+    }
+
+    // the ruleset and the files it points to are looked at again on every use, since daemons and reused worker
+    // processes outlive their edits
+    private synchronized LoadedConfiguration load(String configLocation) {
+        final String rulesetHash = rulesetHash(configLocation);
+        final LoadedConfiguration loaded = configurations.get(configLocation);
+        final LoadedConfiguration reloaded;
+
+        try {
+            if (loaded != null && loaded.fingerprint.equals(fingerprint(rulesetHash, loaded.configuration))) {
+                return loaded;
+            }
+
+            final Configuration configuration =
+                ConfigurationLoader.loadConfiguration(configLocation, new PropertiesExpander(System.getProperties()));
+
+            reloaded = new LoadedConfiguration(configLocation, fingerprint(rulesetHash, configuration), configuration);
+        } catch (CheckstyleException e) {
+            throw new GradleException(e.getMessage(), e);
+        }
+
+        configurations.put(configLocation, reloaded);
+
+        if (loaded != null) {
+            discard(loaded);
+        }
+
+        final Iterator<LoadedConfiguration> iterator = configurations.values().iterator();
+
+        while (configurations.size() > MAX_CONFIGURATIONS) {
+            final LoadedConfiguration eldest = iterator.next();
+            iterator.remove();
+            discard(eldest);
+        }
+
+        return reloaded;
+    }
+
+    private void discard(LoadedConfiguration loaded) {
+        keepsStateAcrossFiles.remove(loaded.key);
+        destroy(idleWorkers.remove(loaded.key));
+    }
+
+    // suppressions, headers and the like are read when a checker is configured, so their content counts as well
+    private static String fingerprint(String rulesetHash, Configuration configuration) throws CheckstyleException {
+        return Digests.sha256Hex(rulesetHash + '\n' + CheckstyleResultCache.hash(configuration));
+    }
+
+    // urls and classpath resources are taken as they are
+    private static String rulesetHash(String configLocation) {
+        final File file = new File(configLocation);
+
+        if (!file.isFile()) {
+            return configLocation;
+        }
+
+        try {
+            return Digests.hex(Digests.sha256().digest(Files.readAllBytes(file.toPath())));
+        } catch (IOException e) {
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+
+    private static boolean keepsState(Class<?> type) {
+        return STATEFUL_CHECKS.contains(type.getName())
+            || !type.getName().startsWith(Checker.class.getPackage().getName() + '.')
+            || overridesFinishProcessing(type);
+    }
+
+    private static boolean overridesFinishProcessing(Class<?> type) {
+        for (Class<?> current = type; current != null && current != AbstractFileSetCheck.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("finishProcessing");
+                return true;
+            } catch (NoSuchMethodException e) {
+                // look further up
+            }
+        }
+
+        return false;
+    }
+
+    private static void destroy(Queue<Worker> workers) {
+        if (workers == null) {
+            return;
+        }
+
+        Worker worker;
+        while ((worker = workers.poll()) != null) {
+            worker.destroy();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        configurations.clear();
+        idleWorkers.values().forEach(CheckerPool::destroy);
+        idleWorkers.clear();
+        keepsStateAcrossFiles.clear();
+    }
+
+    private static class LoadedConfiguration {
+        private final String key;
+        private final String fingerprint;
+        private final Configuration configuration;
+
+        LoadedConfiguration(String configLocation, String fingerprint, Configuration configuration) {
+            this.key = configLocation + '\n' + fingerprint;
+            this.fingerprint = fingerprint;
+            this.configuration = configuration;
+        }
+    }
+
+    static class Worker {
+        private final String key;
+        private final boolean reusable;
+        private final Checker checker = new Checker();
+        private final CheckstyleAuditListener listener = new CheckstyleAuditListener();
+
+        Worker(String key, Configuration configuration, ClassLoader classLoader, boolean reusable) throws CheckstyleException {
+            this.key = key;
+            this.reusable = reusable;
+            checker.setModuleClassLoader(classLoader);
+            checker.configure(configuration);
+            checker.addListener(listener);
+        }
+
+        List<CheckstyleError> check(File file, LinePositionIndex linePositionIndex) throws CheckstyleException {
+            listener.setLinePositionIndex(linePositionIndex);
+
+            try {
+                checker.process(Collections.singletonList(file));
+                return listener.drainErrors();
+            } finally {
+                listener.setLinePositionIndex(null);
+            }
+        }
+
+        // all files in one process() call, every line of them, in the order checkstyle reports them
+        List<CheckstyleError> checkAll(List<File> files) throws CheckstyleException {
+            checker.process(files);
+            return listener.drainErrors();
+        }
+
+        void destroy() {
+            checker.destroy();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.puppycrawl.tools.checkstyle.api.AuditListener;
 
 public class CheckstyleAuditListener implements AuditListener {
     private List<CheckstyleError> errors = new ArrayList<>();
+    private LinePositionIndex linePositionIndex;
 
     @Override
     public void auditStarted(AuditEvent event) {
@@ -49,11 +50,16 @@ public class CheckstyleAuditListener implements AuditListener {
 
     @Override
     public void addError(AuditEvent event) {
+        if (linePositionIndex != null && !linePositionIndex.contains(event.getLine())) {
+            return;
+        }
+
         final CheckstyleError error = new CheckstyleError();
-        error.setSeverityLevel(event.getSeverityLevel());
+        error.setSeverityLevel(Severity.valueOf(event.getSeverityLevel().name()));
         error.setPath(event.getFileName());
         error.setLine(event.getLine());
         error.setMessage(event.getMessage());
+        error.setSource(event.getSourceName());
 
         this.errors.add(error);
     }
@@ -63,7 +69,17 @@ public class CheckstyleAuditListener implements AuditListener {
         // do nothing
     }
 
+    public void setLinePositionIndex(LinePositionIndex linePositionIndex) {
+        this.linePositionIndex = linePositionIndex;
+    }
+
     public List<CheckstyleError> getErrors() {
         return errors;
     }
+
+    public List<CheckstyleError> drainErrors() {
+        final List<CheckstyleError> drained = this.errors;
+        this.errors = new ArrayList<>();
+        return drained;
+    }
 }
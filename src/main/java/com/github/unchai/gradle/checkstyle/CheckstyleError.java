@@ -18,13 +18,13 @@
  */
 package com.github.unchai.gradle.checkstyle;
 
-import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
 import lombok.Data;
 
 @Data
 public class CheckstyleError {
-    private SeverityLevel severityLevel;
+    private Severity severityLevel;
     private String path;
     private int line;
     private String message;
+    private String source;
 }
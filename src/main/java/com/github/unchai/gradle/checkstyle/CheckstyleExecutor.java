@@ -19,49 +19,334 @@
 package com.github.unchai.gradle.checkstyle;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.gradle.api.GradleException;
 
-import com.puppycrawl.tools.checkstyle.Checker;
-import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
-import com.puppycrawl.tools.checkstyle.PropertiesExpander;
-import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
 
 public class CheckstyleExecutor {
-    private final Checker checker = new Checker();
     private final String configLocation;
+    private final int parallelism;
+    private final CheckstyleResultCache cache;
+    private final CheckerPool pool;
+    private final File baselineDir;
+
+    public CheckstyleExecutor(String configLocation, int parallelism) {
+        this(configLocation, parallelism, null);
+    }
+
+    public CheckstyleExecutor(String configLocation, int parallelism, CheckstyleResultCache cache) {
+        this(configLocation, parallelism, cache, null);
+    }
+
+    public CheckstyleExecutor(String configLocation, int parallelism, CheckstyleResultCache cache, CheckerPool pool) {
+        this(configLocation, parallelism, cache, pool, null);
+    }
+
+    // with a baselineDir only violations missing from the base version of each file are reported
+    public CheckstyleExecutor(
+        String configLocation,
+        int parallelism,
+        CheckstyleResultCache cache,
+        CheckerPool pool,
+        File baselineDir) {
 
-    public CheckstyleExecutor(String configLocation) {
         this.configLocation = configLocation;
+        this.parallelism = parallelism;
+        this.cache = cache;
+        this.pool = pool;
+        this.baselineDir = baselineDir;
     }
 
-    public List<CheckstyleError> execute(String baseDir, List<String> files) {
+    public List<CheckstyleError> execute(String baseDir, List<ChangedFile> changedFiles) {
+        final List<ChangedFile> files = changedFiles
+            .stream()
+            .filter(changedFile -> !changedFile.getLinePositionIndex().isEmpty())
+            .collect(Collectors.toList());
+
+        if (files.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final File baseFilesDir = baselineDir == null ? null : createTempDirectory(baselineDir);
+        final Map<String, File> baseFiles = baseFilesDir == null
+            ? Collections.emptyMap()
+            : new GitDiffReader(new File(baseDir)).writeBaseFiles(files, baseFilesDir);
+
+        final CheckerPool checkerPool = pool == null ? new CheckerPool() : pool;
+
+        try {
+            final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+            if (checkerPool.keepsStateAcrossFiles(configLocation, classLoader)) {
+                return checkFileSet(checkerPool, classLoader, baseDir, files, baseFiles);
+            }
+
+            return checkEachFile(checkerPool, classLoader, baseDir, files, baseFiles);
+        } catch (ExecutionException e) {
+            throw new GradleException(e.getCause().getMessage(), e.getCause());
+        } catch (Exception e) {
+            throw new GradleException(e.getMessage(), e);
+        } finally {
+            if (pool == null) {
+                checkerPool.close();
+            }
+
+            if (baseFilesDir != null) {
+                delete(baseFilesDir);
+            }
+        }
+    }
+
+    private List<CheckstyleError> checkEachFile(
+        CheckerPool checkerPool,
+        ClassLoader classLoader,
+        String baseDir,
+        List<ChangedFile> files,
+        Map<String, File> baseFiles) throws Exception {
+
+        final int workerCount = Math.max(1, Math.min(parallelism, files.size() + baseFiles.size()));
+        final BlockingQueue<CheckerPool.Worker> workers = new ArrayBlockingQueue<>(workerCount);
+        final ExecutorService executorService = Executors.newFixedThreadPool(workerCount);
+
         try {
-            final Configuration configuration = ConfigurationLoader.loadConfiguration(
-                configLocation,
-                new PropertiesExpander(System.getProperties())
+            final String configurationHash =
+                cache == null ? null : CheckstyleResultCache.hash(checkerPool.configuration(configLocation));
+
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(checkerPool.borrow(configLocation, classLoader));
+            }
+
+            final List<Future<List<CheckstyleError>>> futures = new ArrayList<>(files.size());
+            final List<Future<List<CheckstyleError>>> baseFutures = new ArrayList<>(files.size());
+
+            // base versions go through the same workers, so they are checked in parallel with the head files
+            for (ChangedFile file : files) {
+                final File baseFile = file.getBaseBlob() == null ? null : baseFiles.get(file.getBaseBlob());
+
+                futures.add(executorService.submit(() -> check(workers, configurationHash, new File(baseDir, file.getPath()), file)));
+                baseFutures.add(baseFile == null ? null : executorService.submit(() -> checkBase(workers, configurationHash, baseFile, file)));
+            }
+
+            final List<CheckstyleError> errors = new ArrayList<>();
+            final String prefix = new File(baseDir).getPath() + File.separator;
+
+            for (int i = 0; i < files.size(); i++) {
+                List<CheckstyleError> fileErrors = futures.get(i).get();
+
+                if (baseFutures.get(i) != null) {
+                    fileErrors = Baseline.newViolations(
+                        fileErrors,
+                        new File(baseDir, files.get(i).getPath()),
+                        baseFutures.get(i).get(),
+                        baseFiles.get(files.get(i).getBaseBlob())
+                    );
+                }
+
+                for (CheckstyleError error : fileErrors) {
+                    errors.add(stripBaseDir(prefix, error));
+                }
+            }
+
+            if (cache != null) {
+                cache.evict();
+            }
+
+            return errors;
+        } finally {
+            shutdown(executorService);
+            workers.forEach(checkerPool::release);
+        }
+    }
+
+    // one sequential pass over all files like a plain checkstyle run, without the per-file cache, whose entries
+    // could not hold violations that depend on the other files of the set
+    private List<CheckstyleError> checkFileSet(
+        CheckerPool checkerPool,
+        ClassLoader classLoader,
+        String baseDir,
+        List<ChangedFile> files,
+        Map<String, File> baseFiles) throws CheckstyleException {
+
+        final CheckerPool.Worker worker = checkerPool.borrow(configLocation, classLoader);
+
+        try {
+            final List<CheckstyleError> headErrors = worker.checkAll(
+                files.stream().map(file -> new File(baseDir, file.getPath())).collect(Collectors.toList())
             );
+            final Map<String, List<CheckstyleError>> baseErrors = baseFiles.isEmpty()
+                ? Collections.emptyMap()
+                : groupByPath(worker.checkAll(new ArrayList<>(new LinkedHashSet<>(baseFiles.values()))));
+
+            final Map<String, List<CheckstyleError>> headErrorsByPath = groupByPath(headErrors);
+            final Set<CheckstyleError> reported = Collections.newSetFromMap(new IdentityHashMap<>());
 
-            final CheckstyleAuditListener listener = new CheckstyleAuditListener();
+            for (ChangedFile file : files) {
+                final File headFile = new File(baseDir, file.getPath());
+                final File baseFile = file.getBaseBlob() == null ? null : baseFiles.get(file.getBaseBlob());
 
-            checker.setModuleClassLoader(Thread.currentThread().getContextClassLoader());
-            checker.configure(configuration);
-            checker.addListener(listener);
-            checker.process(files.stream().map(file -> new File(baseDir, file)).collect(Collectors.toList()));
+                List<CheckstyleError> fileErrors = onChangedLines(
+                    headErrorsByPath.getOrDefault(headFile.getAbsolutePath(), Collections.emptyList()),
+                    file.getLinePositionIndex()
+                );
 
-            return listener.getErrors()
+                if (baseFile != null) {
+                    fileErrors = Baseline.newViolations(
+                        fileErrors,
+                        headFile,
+                        baseErrors.getOrDefault(baseFile.getAbsolutePath(), Collections.emptyList()),
+                        baseFile
+                    );
+                }
+
+                reported.addAll(fileErrors);
+            }
+
+            final String prefix = new File(baseDir).getPath() + File.separator;
+
+            return headErrors
                 .stream()
-                .map(error -> stripBaseDir(baseDir, error))
+                .filter(reported::contains)
+                .map(error -> stripBaseDir(prefix, error))
                 .collect(Collectors.toList());
-        } catch (Exception e) {
+        } finally {
+            checkerPool.release(worker);
+        }
+    }
+
+    private static Map<String, List<CheckstyleError>> groupByPath(List<CheckstyleError> errors) {
+        return errors.stream().collect(Collectors.groupingBy(CheckstyleError::getPath));
+    }
+
+    private static File createTempDirectory(File dir) {
+        try {
+            Files.createDirectories(dir.toPath());
+            return Files.createTempDirectory(dir.toPath(), "base").toFile();
+        } catch (IOException e) {
             throw new GradleException(e.getMessage(), e);
         }
     }
 
-    private CheckstyleError stripBaseDir(String baseDir, CheckstyleError checkstyleError) {
-        checkstyleError.setPath(checkstyleError.getPath().replace(baseDir, "").substring(1));
+    private static void delete(File dir) {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            // left for the next clean
+        }
+    }
+
+    private void shutdown(ExecutorService executorService) {
+        executorService.shutdownNow();
+
+        try {
+            // workers must not go back to the pool while a checker is still running on them
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<CheckstyleError> check(BlockingQueue<CheckerPool.Worker> workers, String configurationHash, File file, ChangedFile changedFile)
+        throws CheckstyleException, InterruptedException {
+
+        String key = null;
+
+        if (cache != null && file.isFile()) {
+            try {
+                key = cache.key(configurationHash, changedFile.getPath(), Files.readAllBytes(file.toPath()));
+            } catch (IOException e) {
+                // unreadable files are left to the checker to report
+            }
+        }
+
+        if (key != null) {
+            final List<CheckstyleError> cached = cache.get(key, file.getAbsolutePath());
+
+            if (cached != null) {
+                return onChangedLines(cached, changedFile.getLinePositionIndex());
+            }
+        }
+
+        final CheckerPool.Worker worker = workers.take();
+        final List<CheckstyleError> errors;
+
+        try {
+            // cached entries keep every line, without a cache the checker drops the unchanged ones right away
+            errors = worker.check(file, key == null ? changedFile.getLinePositionIndex() : null);
+        } finally {
+            workers.add(worker);
+        }
+
+        if (key != null) {
+            cache.put(key, errors);
+            return onChangedLines(errors, changedFile.getLinePositionIndex());
+        }
+
+        return errors;
+    }
+
+    private static List<CheckstyleError> onChangedLines(List<CheckstyleError> errors, LinePositionIndex linePositionIndex) {
+        return errors.stream().filter(error -> linePositionIndex.contains(error.getLine())).collect(Collectors.toList());
+    }
+
+    private List<CheckstyleError> checkBase(
+        BlockingQueue<CheckerPool.Worker> workers,
+        String configurationHash,
+        File baseFile,
+        ChangedFile changedFile) throws CheckstyleException, InterruptedException {
+
+        final String key = cache == null ? null : cache.baseKey(configurationHash, baseFile.getName(), changedFile.getBaseBlob());
+
+        if (key != null) {
+            final List<CheckstyleError> cached = cache.get(key, baseFile.getAbsolutePath());
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final CheckerPool.Worker worker = workers.take();
+        final List<CheckstyleError> errors;
+
+        try {
+            // every line of the base version counts, not only the changed ones
+            errors = worker.check(baseFile, null);
+        } finally {
+            workers.add(worker);
+        }
+
+        if (key != null) {
+            cache.put(key, errors);
+        }
+
+        return errors;
+    }
+
+    private CheckstyleError stripBaseDir(String prefix, CheckstyleError checkstyleError) {
+        if (checkstyleError.getPath().startsWith(prefix)) {
+            checkstyleError.setPath(checkstyleError.getPath().substring(prefix.length()));
+        }
+
         return checkstyleError;
     }
 }
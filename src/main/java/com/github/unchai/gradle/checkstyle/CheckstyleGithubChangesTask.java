@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.Directory;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.kohsuke.github.GHCommitState;
+
+public class CheckstyleGithubChangesTask extends DefaultTask {
+    private final Property<CheckstyleGithubSettings> settings =
+        getProject().getObjects().property(CheckstyleGithubSettings.class);
+    private final Property<GithubHttpService> httpService = getProject().getObjects().property(GithubHttpService.class);
+    private final Property<Boolean> github = getProject().getObjects().property(Boolean.class).convention(false);
+    private final Property<String> githubOAuth = getProject().getObjects().property(String.class);
+    private final Property<String> githubToken = getProject().getObjects().property(String.class);
+    private final Property<String> githubPullRequest = getProject().getObjects().property(String.class);
+    private final Property<String> diffBase = getProject().getObjects().property(String.class);
+    private final Property<String> diffHead = getProject().getObjects().property(String.class);
+    private final Provider<Directory> buildDirectory = getProject().getLayout().getBuildDirectory();
+    private final File projectDir = getProject().getProjectDir();
+    private final List<ChangedFileRoute> routes = new ArrayList<>();
+
+    public CheckstyleGithubChangesTask() {
+        getOutputs().upToDateWhen(task -> false);
+    }
+
+    @Internal
+    public Property<CheckstyleGithubSettings> getSettings() {
+        return settings;
+    }
+
+    @Internal
+    public Property<GithubHttpService> getHttpService() {
+        return httpService;
+    }
+
+    // whether the publish task runs, so the changes come from github instead of --diffBase of the report task
+    @Internal
+    public Property<Boolean> getGithub() {
+        return github;
+    }
+
+    @Internal
+    public Property<String> getGithubOAuth() {
+        return githubOAuth;
+    }
+
+    @Internal
+    public Property<String> getGithubToken() {
+        return githubToken;
+    }
+
+    @Internal
+    public Property<String> getGithubPullRequest() {
+        return githubPullRequest;
+    }
+
+    @Internal
+    public Property<String> getDiffBase() {
+        return diffBase;
+    }
+
+    @Internal
+    public Property<String> getDiffHead() {
+        return diffHead;
+    }
+
+    @Internal
+    public List<ChangedFileRoute> getRoutes() {
+        return routes;
+    }
+
+    @OutputFile
+    public File getChangedFilesFile() {
+        return new File(buildDirectory.get().getAsFile(), ReportFiles.CHANGED_FILES);
+    }
+
+    @OutputDirectory
+    @Optional
+    public File getRoutedChangedFilesDir() {
+        return routes.isEmpty() ? null : ReportFiles.routedChangedFilesDir(buildDirectory.get().getAsFile());
+    }
+
+    @TaskAction
+    public void action() {
+        final CheckstyleGithubSettings settings = this.settings.get();
+        final String diffBase = this.diffBase.getOrNull();
+        final String diffHead = this.diffHead.getOrElse("HEAD");
+
+        final TaskMetrics metrics = new TaskMetrics(getName());
+
+        if (!github.get()) {
+            settings.validate();
+
+            if (StringUtils.isBlank(diffBase)) {
+                throw new GradleException("'--diffBase' required to check without github!");
+            }
+
+            final List<ChangedFile> changedFiles = metrics.time(TaskMetrics.LIST_FILES, () ->
+                new GitDiffReader(projectDir, settings.buildPathFilter()).listChangedFile(diffBase, diffHead)
+            );
+
+            if (settings.isDeltaOnly()) {
+                resolveBaseBlobs(diffBase, diffHead, changedFiles, metrics);
+            }
+
+            writeChangedFiles(changedFiles, metrics);
+            return;
+        }
+
+        settings.validateGithub();
+
+        final GithubHttpService httpService = this.httpService.get();
+        final GithubHttpStats httpStats = new GithubHttpStats();
+
+        try {
+            final GithubHelper githubHelper = metrics.time(TaskMetrics.CONNECT, () -> GithubHelper.connect(
+                settings.getGhEndpoint(),
+                githubOAuth.isPresent() ? githubOAuth.get() : githubToken.getOrNull(),
+                settings.getGhRepository(),
+                NumberUtils.toInt(githubPullRequest.getOrNull()),
+                httpService.newClient(httpStats)
+            ));
+
+            final Future<?> pending = Background.start(() -> {
+                if (!settings.isChecksPublisher()) {
+                    metrics.time(TaskMetrics.STATUS, () -> githubHelper.changeStatus(GHCommitState.PENDING, null));
+                }
+            });
+
+            final List<ChangedFile> changedFiles = metrics.time(TaskMetrics.LIST_FILES, () -> {
+                if (StringUtils.isNotBlank(diffBase)) {
+                    return new GitDiffReader(projectDir, settings.buildPathFilter()).listChangedFile(diffBase, diffHead);
+                }
+
+                return githubHelper.listChangedFile(settings.buildPathFilter(), metrics);
+            });
+
+            if (settings.isDeltaOnly()) {
+                if (StringUtils.isNotBlank(diffBase)) {
+                    resolveBaseBlobs(diffBase, diffHead, changedFiles, metrics);
+                } else {
+                    resolveBaseBlobs(githubHelper.getBaseSha(), "HEAD", changedFiles, metrics);
+                }
+            }
+
+            Background.await(pending);
+
+            metrics.setHttpStats(httpStats);
+            writeChangedFiles(changedFiles, metrics);
+        } finally {
+            GithubHelper.logHttpCache(httpService, httpStats, getLogger());
+        }
+    }
+
+    private void resolveBaseBlobs(String base, String head, List<ChangedFile> changedFiles, TaskMetrics metrics) {
+        metrics.time(
+            TaskMetrics.RESOLVE_BASE,
+            () -> new GitDiffReader(projectDir).resolveBaseBlobs(base, head, changedFiles)
+        );
+    }
+
+    private void writeChangedFiles(List<ChangedFile> changedFiles, TaskMetrics metrics) {
+        metrics.setFiles(changedFiles.size());
+
+        for (ChangedFile changedFile : changedFiles) {
+            changedFile.setContentHash(contentHash(new File(projectDir, changedFile.getPath())));
+        }
+
+        ReportFiles.writeChangedFiles(getChangedFilesFile(), changedFiles);
+
+        for (ChangedFileRoute route : routes) {
+            ReportFiles.writeChangedFiles(
+                ReportFiles.routedChangedFilesFile(buildDirectory.get().getAsFile(), route.getName()),
+                changedFiles.stream().filter(changedFile -> route.owns(changedFile.getPath())).collect(Collectors.toList())
+            );
+        }
+
+        metrics.write(ReportFiles.metricsFile(buildDirectory.get().getAsFile(), getName()), getLogger());
+    }
+
+    // null for deleted files
+    private static String contentHash(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            return Digests.hex(Digests.sha256().digest(Files.readAllBytes(file.toPath())));
+        } catch (IOException e) {
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+}
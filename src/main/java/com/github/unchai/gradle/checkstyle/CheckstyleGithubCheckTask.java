@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+@CacheableTask
+public class CheckstyleGithubCheckTask extends DefaultTask {
+    private final WorkerExecutor workerExecutor;
+    private final Property<CheckstyleGithubSettings> settings =
+        getProject().getObjects().property(CheckstyleGithubSettings.class);
+    private final Property<CheckerPoolService> checkerPoolService =
+        getProject().getObjects().property(CheckerPoolService.class);
+    private final ConfigurableFileCollection checkstyleClasspath = getProject().files();
+    private final ConfigurableFileCollection configReferencedFiles = getProject().files();
+    private final Provider<Directory> buildDirectory = getProject().getLayout().getBuildDirectory();
+    private final RegularFileProperty changedFilesFile = getProject().getObjects().fileProperty()
+        .convention(buildDirectory.map(dir -> dir.file(ReportFiles.CHANGED_FILES)));
+    private final RegularFileProperty resultsFile = getProject().getObjects().fileProperty()
+        .convention(buildDirectory.map(dir -> dir.file(ReportFiles.RESULTS)));
+    private final File projectDir = getProject().getProjectDir();
+    private File baseDir = projectDir;
+
+    @Inject
+    public CheckstyleGithubCheckTask(WorkerExecutor workerExecutor) {
+        this.workerExecutor = workerExecutor;
+        this.configReferencedFiles.from(settings.map(settings -> {
+            final File configFile = settings.configFile(projectDir);
+            return configFile == null ? Collections.emptyList() : ConfigReferences.referencedFiles(configFile, projectDir);
+        }));
+    }
+
+    @Internal
+    public Property<CheckstyleGithubSettings> getSettings() {
+        return settings;
+    }
+
+    @Internal
+    public Property<CheckerPoolService> getCheckerPoolService() {
+        return checkerPoolService;
+    }
+
+    // the content hash of every changed file is part of it, so it also stands for the sources
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public RegularFileProperty getChangedFilesFile() {
+        return changedFilesFile;
+    }
+
+    @Internal
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    public void setBaseDir(File baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    @InputFile
+    @Optional
+    @PathSensitive(PathSensitivity.NONE)
+    public File getConfigFile() {
+        return settings.get().configFile(projectDir);
+    }
+
+    // suppressions, headers and the like change the results just like the ruleset itself
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public ConfigurableFileCollection getConfigReferencedFiles() {
+        return configReferencedFiles;
+    }
+
+    @Input
+    @Optional
+    public String getConfigResource() {
+        return getConfigFile() == null ? settings.get().getConfigLocation() : null;
+    }
+
+    @Input
+    public String getToolVersion() {
+        return settings.get().getToolVersion();
+    }
+
+    @Input
+    public boolean isDeltaOnly() {
+        return settings.get().isDeltaOnly();
+    }
+
+    @Classpath
+    public ConfigurableFileCollection getCheckstyleClasspath() {
+        return checkstyleClasspath;
+    }
+
+    @OutputFile
+    public RegularFileProperty getResultsFile() {
+        return resultsFile;
+    }
+
+    @TaskAction
+    public void action() {
+        final CheckstyleGithubSettings settings = this.settings.get();
+
+        settings.validate();
+
+        final TaskMetrics metrics = new TaskMetrics(getName());
+        final File changedFilesFile = this.changedFilesFile.get().getAsFile();
+        final File resultsFile = this.resultsFile.get().getAsFile();
+
+        metrics.time(TaskMetrics.CHECK, () -> {
+            final WorkQueue workQueue = workQueue(workerExecutor, settings, checkstyleClasspath);
+
+            check(
+                workQueue,
+                settings,
+                settings.resolveConfigLocation(projectDir),
+                checkerPoolService,
+                getTemporaryDir(),
+                baseDir,
+                changedFilesFile,
+                resultsFile
+            );
+
+            if (workQueue != null) {
+                workQueue.await();
+            }
+        });
+
+        final int[] violations = new int[1];
+        ReportFiles.forEachError(resultsFile, error -> violations[0]++);
+
+        metrics.setFiles(ReportFiles.readChangedFiles(changedFilesFile).size());
+        metrics.setViolations(violations[0]);
+        metrics.write(ReportFiles.metricsFile(buildDirectory.get().getAsFile(), getName()), getLogger());
+    }
+
+    // null when checkstyle runs in the build's classloader
+    static WorkQueue workQueue(
+        WorkerExecutor workerExecutor,
+        CheckstyleGithubSettings settings,
+        FileCollection checkstyleClasspath) {
+
+        if (CheckstyleGithubPluginExtension.ISOLATION_NONE.equals(settings.getIsolation())) {
+            return null;
+        }
+
+        if (CheckstyleGithubPluginExtension.ISOLATION_PROCESS.equals(settings.getIsolation())) {
+            return workerExecutor.processIsolation(spec -> spec.getClasspath().from(checkstyleClasspath));
+        }
+
+        return workerExecutor.classLoaderIsolation(spec -> spec.getClasspath().from(checkstyleClasspath));
+    }
+
+    // checks the files listed in changedFilesFile below baseDir, on the work queue unless it is null
+    static void check(
+        WorkQueue workQueue,
+        CheckstyleGithubSettings settings,
+        String configLocation,
+        Provider<CheckerPoolService> checkerPoolService,
+        File temporaryDir,
+        File baseDir,
+        File changedFilesFile,
+        File resultsFile) {
+
+        final File baselineDir = settings.isDeltaOnly() ? temporaryDir : null;
+
+        if (workQueue == null) {
+            final CheckstyleResultCache cache = settings.buildCache();
+
+            CheckstyleWorkAction.check(
+                new CheckstyleExecutor(
+                    configLocation,
+                    settings.getParallelism(),
+                    cache,
+                    checkerPoolService.get().getPool(),
+                    baselineDir),
+                cache,
+                baseDir,
+                changedFilesFile,
+                resultsFile
+            );
+            return;
+        }
+
+        workQueue.submit(CheckstyleWorkAction.class, parameters -> {
+            parameters.getConfigLocation().set(configLocation);
+            parameters.getToolVersion().set(settings.getToolVersion());
+            parameters.getParallelism().set(settings.getParallelism());
+            parameters.getBaseDir().set(baseDir);
+            parameters.getChangedFilesFile().set(changedFilesFile);
+            parameters.getResultsFile().set(resultsFile);
+            parameters.getCacheEnabled().set(settings.isCacheEnabled());
+            parameters.getDeltaOnly().set(settings.isDeltaOnly());
+            parameters.getTemporaryDir().set(temporaryDir);
+
+            if (settings.isCacheEnabled()) {
+                parameters.getCacheDir().set(settings.getCacheDir());
+                parameters.getCacheMaxSize().set(settings.getCacheMaxSizeMb() * 1024 * 1024);
+                parameters.getCacheMaxAge().set(TimeUnit.DAYS.toMillis(settings.getCacheMaxAgeDays()));
+            }
+        });
+    }
+}
@@ -18,30 +18,247 @@
  */
 package com.github.unchai.gradle.checkstyle;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.TaskProvider;
 
 public class CheckstyleGithubPlugin implements Plugin<Project> {
     public static final String TOOL_NAME = "checkstyleGithub";
     private static final String DEFAULT_CHECKSTYLE_VERSION = "8.29";
     private static final String DEFAULT_GITHUB_ENDPOINT = "https://api.github.com";
+    private static final String DEFAULT_INCLUDE = "**/*.java";
+    private static final int DEFAULT_REVIEW_BATCH_SIZE = 200;
+    private static final int DEFAULT_PUBLISH_CONCURRENCY = 4;
+    private static final int DEFAULT_PULL_REQUEST_CONCURRENCY = 4;
+    private static final long DEFAULT_CACHE_MAX_SIZE_MB = 512;
+    private static final int DEFAULT_CACHE_MAX_AGE_DAYS = 30;
+    private static final long DEFAULT_HTTP_CACHE_MAX_SIZE_MB = 50;
+    private static final int DEFAULT_HTTP_POOL_SIZE = 8;
+    private static final long DEFAULT_HTTP_KEEP_ALIVE_SECONDS = 300;
+    private static final long DEFAULT_HTTP_CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long DEFAULT_HTTP_READ_TIMEOUT_SECONDS = 60;
+    private static final String TOKEN_ENVIRONMENT_VARIABLE = "GITHUB_TOKEN";
 
     @Override
     public void apply(Project project) {
         final Configuration configuration = project.getConfigurations().create(TOOL_NAME);
+        final File gradleUserHomeDir = project.getGradle().getGradleUserHomeDir();
 
         final CheckstyleGithubPluginExtension extension = project.getExtensions().create(TOOL_NAME, CheckstyleGithubPluginExtension.class);
-        extension.setToolVersion(DEFAULT_CHECKSTYLE_VERSION);
-        extension.setGhEndpoint(DEFAULT_GITHUB_ENDPOINT);
+        extension.getToolVersion().convention(DEFAULT_CHECKSTYLE_VERSION);
+        extension.getGhEndpoint().convention(DEFAULT_GITHUB_ENDPOINT);
+        extension.getIncludes().convention(Collections.singletonList(DEFAULT_INCLUDE));
+        extension.getExcludes().convention(Collections.emptyList());
+        extension.getPublisher().convention(CheckstyleGithubPluginExtension.PUBLISHER_COMMENTS);
+        extension.getReviewBatchSize().convention(DEFAULT_REVIEW_BATCH_SIZE);
+        extension.getPublishConcurrency().convention(DEFAULT_PUBLISH_CONCURRENCY);
+        extension.getPullRequestConcurrency().convention(DEFAULT_PULL_REQUEST_CONCURRENCY);
+        extension.getParallelism().convention(Runtime.getRuntime().availableProcessors());
+        extension.getIsolation().convention(CheckstyleGithubPluginExtension.ISOLATION_CLASSLOADER);
+        extension.getAggregate().convention(false);
+        extension.getDeltaOnly().convention(false);
+        extension.getCacheEnabled().convention(true);
+        extension.getCacheDir().convention(
+            project.getLayout().dir(project.provider(() -> new File(gradleUserHomeDir, "caches/checkstyle-github")))
+        );
+        extension.getCacheMaxSizeMb().convention(DEFAULT_CACHE_MAX_SIZE_MB);
+        extension.getCacheMaxAgeDays().convention(DEFAULT_CACHE_MAX_AGE_DAYS);
+        extension.getHttpCacheEnabled().convention(true);
+        // okhttp's disk cache can't be shared between processes, so unlike the result cache it stays with the checkout
+        extension.getHttpCacheDir().convention(
+            project.getRootProject().getLayout().getProjectDirectory().dir(".gradle/checkstyle-github-http")
+        );
+        extension.getHttpCacheMaxSizeMb().convention(DEFAULT_HTTP_CACHE_MAX_SIZE_MB);
+        extension.getHttpPoolSize().convention(DEFAULT_HTTP_POOL_SIZE);
+        extension.getHttpKeepAliveSeconds().convention(DEFAULT_HTTP_KEEP_ALIVE_SECONDS);
+        extension.getHttpConnectTimeoutSeconds().convention(DEFAULT_HTTP_CONNECT_TIMEOUT_SECONDS);
+        extension.getHttpReadTimeoutSeconds().convention(DEFAULT_HTTP_READ_TIMEOUT_SECONDS);
 
         configuration.defaultDependencies(dependencies -> dependencies.add(
-            project.getDependencies().create("com.puppycrawl.tools:checkstyle:" + extension.getToolVersion())
+            project.getDependencies().create("com.puppycrawl.tools:checkstyle:" + extension.getToolVersion().get())
         ));
 
-        final Task task = project.getTasks().create(TOOL_NAME, CheckstyleGithubTask.class);
-        task.setGroup("Lint");
-        task.setDescription("A gradle plugin that leaves comment of the result of a \"Checkstyle\" on github's pull request.");
+        // tasks only see this snapshot, so nothing reaches back into the project once they execute
+        final Provider<CheckstyleGithubSettings> settings = project.provider(() -> CheckstyleGithubSettings.of(extension));
+
+        final Provider<CheckerPoolService> checkerPoolService = project.getGradle().getSharedServices()
+            .registerIfAbsent(TOOL_NAME + "CheckerPool", CheckerPoolService.class, spec -> { });
+
+        // registered once per build, by the first project applying the plugin
+        final Provider<GithubHttpService> httpService = project.getGradle().getSharedServices()
+            .registerIfAbsent(TOOL_NAME + "Http", GithubHttpService.class, spec -> {
+                spec.getParameters().getPoolSize().set(extension.getHttpPoolSize());
+                spec.getParameters().getKeepAliveSeconds().set(extension.getHttpKeepAliveSeconds());
+                spec.getParameters().getConnectTimeoutSeconds().set(extension.getHttpConnectTimeoutSeconds());
+                spec.getParameters().getReadTimeoutSeconds().set(extension.getHttpReadTimeoutSeconds());
+                spec.getParameters().getCacheEnabled().set(extension.getHttpCacheEnabled());
+                spec.getParameters().getCacheDir().set(extension.getHttpCacheDir());
+                spec.getParameters().getCacheMaxSize().set(extension.getHttpCacheMaxSizeMb().map(size -> size * 1024 * 1024));
+            });
+
+        // read when the tasks run, so unlike a --githubOAuth value it isn't written to the configuration cache
+        final Provider<String> githubToken = project.getProviders().environmentVariable(TOKEN_ENVIRONMENT_VARIABLE);
+
+        final TaskProvider<CheckstyleGithubTask> task = project.getTasks().register(TOOL_NAME, CheckstyleGithubTask.class, publish -> {
+            publish.setGroup("Lint");
+            publish.setDescription("A gradle plugin that leaves comment of the result of a \"Checkstyle\" on github's pull request.");
+            publish.getSettings().set(settings);
+            publish.getGithubToken().set(githubToken);
+            publish.getCheckerPoolService().set(checkerPoolService);
+            publish.getHttpService().set(httpService);
+            publish.usesService(checkerPoolService);
+            publish.usesService(httpService);
+            publish.getCheckstyleClasspath().from(configuration);
+        });
+
+        // in batch mode the publish task lists and checks every pull request itself
+        final Spec<Task> notBatch = new NotBatch(task.flatMap(CheckstyleGithubTask::getGithubPullRequest));
+
+        final TaskProvider<CheckstyleGithubReportTask> reportTask =
+            project.getTasks().register(TOOL_NAME + "Report", CheckstyleGithubReportTask.class, report -> {
+                report.setGroup("Lint");
+                report.setDescription("Writes the checkstyle results of the changed lines as SARIF and Checkstyle XML without github.");
+                report.getSettings().set(settings);
+            });
+
+        final TaskProvider<CheckstyleGithubChangesTask> changesTask =
+            project.getTasks().register(TOOL_NAME + "Changes", CheckstyleGithubChangesTask.class, changes -> {
+                changes.setDescription("Lists the lines changed by the github pull request.");
+                changes.getSettings().set(settings);
+                changes.getHttpService().set(httpService);
+                changes.usesService(httpService);
+                changes.getGithubOAuth().set(task.flatMap(CheckstyleGithubTask::getGithubOAuth));
+                changes.getGithubToken().set(githubToken);
+                changes.getGithubPullRequest().set(task.flatMap(CheckstyleGithubTask::getGithubPullRequest));
+                changes.onlyIf(notBatch);
+            });
+
+        final TaskProvider<CheckstyleGithubCheckTask> checkTask =
+            project.getTasks().register(TOOL_NAME + "Check", CheckstyleGithubCheckTask.class, check -> {
+                check.setDescription("Runs checkstyle on the lines changed by the github pull request.");
+                check.getSettings().set(settings);
+                check.getCheckerPoolService().set(checkerPoolService);
+                check.usesService(checkerPoolService);
+                check.getCheckstyleClasspath().from(configuration);
+                check.dependsOn(changesTask);
+                check.onlyIf(notBatch);
+            });
+
+        task.configure(publish -> publish.dependsOn(checkTask));
+        reportTask.configure(report -> report.dependsOn(checkTask));
+
+        // the changes come from github when the publish task runs, from --diffBase of the report task otherwise
+        final String taskPath = project.absoluteProjectPath(TOOL_NAME);
+
+        project.getGradle().getTaskGraph().whenReady(graph -> changesTask.configure(changes -> {
+            final boolean github = graph.hasTask(taskPath);
+
+            changes.getGithub().set(github);
+
+            if (github) {
+                changes.getDiffBase().set(task.flatMap(CheckstyleGithubTask::getDiffBase));
+                changes.getDiffHead().set(task.flatMap(CheckstyleGithubTask::getDiffHead));
+            } else {
+                changes.getDiffBase().set(reportTask.flatMap(CheckstyleGithubReportTask::getDiffBase));
+                changes.getDiffHead().set(reportTask.flatMap(CheckstyleGithubReportTask::getDiffHead));
+            }
+        }));
+
+        if (project == project.getRootProject()) {
+            project.getGradle().projectsEvaluated(gradle -> {
+                if (extension.getAggregate().get()) {
+                    configureAggregate(project, notBatch);
+                }
+            });
+        }
+    }
+
+    private void configureAggregate(Project rootProject, Spec<Task> notBatch) {
+        final TaskProvider<CheckstyleGithubTask> rootTask = rootProject.getTasks().named(TOOL_NAME, CheckstyleGithubTask.class);
+        final TaskProvider<CheckstyleGithubChangesTask> rootChangesTask =
+            rootProject.getTasks().named(TOOL_NAME + "Changes", CheckstyleGithubChangesTask.class);
+        final TaskProvider<CheckstyleGithubReportTask> rootReportTask =
+            rootProject.getTasks().named(TOOL_NAME + "Report", CheckstyleGithubReportTask.class);
+
+        final List<Project> projects = rootProject.getAllprojects()
+            .stream()
+            .filter(project -> project.getPlugins().hasPlugin(CheckstyleGithubPlugin.class))
+            .collect(Collectors.toList());
+
+        final Map<Project, String> prefixes = new HashMap<>();
+
+        for (Project project : projects) {
+            final String path = rootProject.getProjectDir().toPath().relativize(project.getProjectDir().toPath()).toString();
+            prefixes.put(project, path.isEmpty() ? "" : path.replace(File.separatorChar, '/') + "/");
+        }
+
+        rootTask.configure(task -> task.getResultsFiles().setFrom());
+        rootReportTask.configure(task -> task.getResultsFiles().setFrom());
+
+        for (Project project : projects) {
+            final String prefix = prefixes.get(project);
+
+            final ChangedFileRoute route = new ChangedFileRoute();
+            route.setName(project == rootProject ? "root" : project.getPath().substring(1).replace(':', '_'));
+            route.setPrefix(prefix);
+            route.setExcludedPrefixes(
+                prefixes.values()
+                    .stream()
+                    .filter(other -> other.length() > prefix.length() && other.startsWith(prefix))
+                    .collect(Collectors.toList())
+            );
+            rootChangesTask.configure(task -> task.getRoutes().add(route));
+
+            final TaskProvider<CheckstyleGithubCheckTask> checkTask =
+                project.getTasks().named(TOOL_NAME + "Check", CheckstyleGithubCheckTask.class);
+            checkTask.configure(task -> {
+                task.getChangedFilesFile().set(rootProject.getLayout().getBuildDirectory().file(
+                    ReportFiles.ROUTED_CHANGED_FILES + "/" + route.getName() + ".json"
+                ));
+                task.setBaseDir(rootProject.getProjectDir());
+                task.dependsOn(rootChangesTask);
+                task.onlyIf(notBatch);
+            });
+
+            rootTask.configure(task -> {
+                task.getResultsFiles().from(checkTask.flatMap(CheckstyleGithubCheckTask::getResultsFile));
+                task.dependsOn(checkTask);
+            });
+            rootReportTask.configure(task -> {
+                task.getResultsFiles().from(checkTask.flatMap(CheckstyleGithubCheckTask::getResultsFile));
+                task.dependsOn(checkTask);
+            });
+
+            if (project != rootProject) {
+                project.getTasks().named(TOOL_NAME).configure(task -> task.setEnabled(false));
+                project.getTasks().named(TOOL_NAME + "Changes").configure(task -> task.setEnabled(false));
+                project.getTasks().named(TOOL_NAME + "Report").configure(task -> task.setEnabled(false));
+            }
+        }
+    }
+
+    // a provider rather than the publish task itself, so the spec can be stored in the configuration cache
+    private static final class NotBatch implements Spec<Task> {
+        private final Provider<String> pullRequests;
+
+        NotBatch(Provider<String> pullRequests) {
+            this.pullRequests = pullRequests;
+        }
+
+        @Override
+        public boolean isSatisfiedBy(Task task) {
+            return PullRequests.parse(pullRequests.getOrNull()).size() <= 1;
+        }
     }
 }
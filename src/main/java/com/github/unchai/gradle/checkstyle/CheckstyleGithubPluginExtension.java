@@ -18,33 +18,75 @@
  */
 package com.github.unchai.gradle.checkstyle;
 
-import org.apache.commons.lang3.StringUtils;
-import org.gradle.api.GradleException;
+import javax.inject.Inject;
 
-import lombok.Data;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
 
-@Data
-public class CheckstyleGithubPluginExtension {
-    private String toolVersion;
-    private String ghEndpoint;
-    private String ghRepository;
-    private String configLocation;
-
-    void validate() {
-        if (StringUtils.isBlank(toolVersion)) {
-            throw new GradleException("'toolVersion' required!");
-        }
+import lombok.Getter;
 
-        if (StringUtils.isBlank(ghEndpoint)) {
-            throw new GradleException("'ghEndpoint' required!");
-        }
+@Getter
+public class CheckstyleGithubPluginExtension {
+    static final String ISOLATION_NONE = "none";
+    static final String ISOLATION_CLASSLOADER = "classloader";
+    static final String ISOLATION_PROCESS = "process";
+    static final String PUBLISHER_COMMENTS = "comments";
+    static final String PUBLISHER_CHECKS = "checks";
 
-        if (StringUtils.isBlank(ghRepository)) {
-            throw new GradleException("'ghRepository' required!");
-        }
+    private final Property<String> toolVersion;
+    private final Property<String> ghEndpoint;
+    private final Property<String> ghRepository;
+    private final Property<String> configLocation;
+    private final ListProperty<String> includes;
+    private final ListProperty<String> excludes;
+    private final Property<String> publisher;
+    private final Property<Integer> reviewBatchSize;
+    private final Property<Integer> publishConcurrency;
+    private final Property<Integer> pullRequestConcurrency;
+    private final Property<Integer> parallelism;
+    private final Property<String> isolation;
+    private final Property<Boolean> aggregate;
+    private final Property<Boolean> deltaOnly;
+    private final Property<Boolean> cacheEnabled;
+    private final DirectoryProperty cacheDir;
+    private final Property<Long> cacheMaxSizeMb;
+    private final Property<Integer> cacheMaxAgeDays;
+    private final Property<Boolean> httpCacheEnabled;
+    private final DirectoryProperty httpCacheDir;
+    private final Property<Long> httpCacheMaxSizeMb;
+    private final Property<Integer> httpPoolSize;
+    private final Property<Long> httpKeepAliveSeconds;
+    private final Property<Long> httpConnectTimeoutSeconds;
+    private final Property<Long> httpReadTimeoutSeconds;
 
-        if (StringUtils.isBlank(configLocation)) {
-            throw new GradleException("'configLocation' required!");
-        }
+    @Inject
+    public CheckstyleGithubPluginExtension(ObjectFactory objects) {
+        this.toolVersion = objects.property(String.class);
+        this.ghEndpoint = objects.property(String.class);
+        this.ghRepository = objects.property(String.class);
+        this.configLocation = objects.property(String.class);
+        this.includes = objects.listProperty(String.class);
+        this.excludes = objects.listProperty(String.class);
+        this.publisher = objects.property(String.class);
+        this.reviewBatchSize = objects.property(Integer.class);
+        this.publishConcurrency = objects.property(Integer.class);
+        this.pullRequestConcurrency = objects.property(Integer.class);
+        this.parallelism = objects.property(Integer.class);
+        this.isolation = objects.property(String.class);
+        this.aggregate = objects.property(Boolean.class);
+        this.deltaOnly = objects.property(Boolean.class);
+        this.cacheEnabled = objects.property(Boolean.class);
+        this.cacheDir = objects.directoryProperty();
+        this.cacheMaxSizeMb = objects.property(Long.class);
+        this.cacheMaxAgeDays = objects.property(Integer.class);
+        this.httpCacheEnabled = objects.property(Boolean.class);
+        this.httpCacheDir = objects.directoryProperty();
+        this.httpCacheMaxSizeMb = objects.property(Long.class);
+        this.httpPoolSize = objects.property(Integer.class);
+        this.httpKeepAliveSeconds = objects.property(Long.class);
+        this.httpConnectTimeoutSeconds = objects.property(Long.class);
+        this.httpReadTimeoutSeconds = objects.property(Long.class);
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+
+@CacheableTask
+public class CheckstyleGithubReportTask extends DefaultTask {
+    private final Property<String> diffBase = getProject().getObjects().property(String.class);
+    private final Property<String> diffHead = getProject().getObjects().property(String.class).convention("HEAD");
+    private final Property<CheckstyleGithubSettings> settings =
+        getProject().getObjects().property(CheckstyleGithubSettings.class);
+    private final Provider<Directory> buildDirectory = getProject().getLayout().getBuildDirectory();
+    private final ConfigurableFileCollection resultsFiles =
+        getProject().files(buildDirectory.map(dir -> dir.file(ReportFiles.RESULTS)));
+    private final RegularFileProperty sarifFile = getProject().getObjects().fileProperty()
+        .convention(buildDirectory.map(dir -> dir.file(ReportFiles.SARIF)));
+    private final RegularFileProperty xmlFile = getProject().getObjects().fileProperty()
+        .convention(buildDirectory.map(dir -> dir.file(ReportFiles.CHECKSTYLE_XML)));
+
+    @Internal
+    @Option(option = "diffBase", description = "Git revision the changes are compared against")
+    public Property<String> getDiffBase() {
+        return diffBase;
+    }
+
+    @Internal
+    @Option(option = "diffHead", description = "Git revision of the changes (default: HEAD)")
+    public Property<String> getDiffHead() {
+        return diffHead;
+    }
+
+    @Internal
+    public Property<CheckstyleGithubSettings> getSettings() {
+        return settings;
+    }
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public ConfigurableFileCollection getResultsFiles() {
+        return resultsFiles;
+    }
+
+    @Input
+    public String getToolVersion() {
+        return settings.get().getToolVersion();
+    }
+
+    @OutputFile
+    public RegularFileProperty getSarifFile() {
+        return sarifFile;
+    }
+
+    @OutputFile
+    public RegularFileProperty getXmlFile() {
+        return xmlFile;
+    }
+
+    @TaskAction
+    public void action() {
+        final TaskMetrics metrics = new TaskMetrics(getName());
+        final AtomicInteger violations = new AtomicInteger();
+        final File sarifFile = this.sarifFile.get().getAsFile();
+        final File xmlFile = this.xmlFile.get().getAsFile();
+
+        metrics.time(TaskMetrics.WRITE_REPORTS, () -> {
+            try (ReportWriter sarif = new SarifReportWriter(sarifFile, getToolVersion());
+                 ReportWriter xml = new CheckstyleXmlReportWriter(xmlFile, getToolVersion())) {
+
+                for (File resultsFile : resultsFiles) {
+                    ReportFiles.forEachError(resultsFile, error -> {
+                        try {
+                            sarif.write(error);
+                            xml.write(error);
+                        } catch (IOException e) {
+                            throw new GradleException(e.getMessage(), e);
+                        }
+
+                        violations.incrementAndGet();
+                    });
+                }
+            } catch (IOException e) {
+                throw new GradleException(e.getMessage(), e);
+            }
+        });
+
+        getLogger().lifecycle(
+            "checkstyle reported {} violations to {} and {}.",
+            violations.get(),
+            sarifFile,
+            xmlFile
+        );
+
+        metrics.setViolations(violations.get());
+        metrics.write(ReportFiles.metricsFile(buildDirectory.get().getAsFile(), getName()), getLogger());
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.gradle.api.GradleException;
+
+import lombok.Data;
+
+@Data
+class CheckstyleGithubSettings {
+    private String toolVersion;
+    private String ghEndpoint;
+    private String ghRepository;
+    private String configLocation;
+    private List<String> includes;
+    private List<String> excludes;
+    private String publisher;
+    private int reviewBatchSize;
+    private int publishConcurrency;
+    private int pullRequestConcurrency;
+    private int parallelism;
+    private String isolation;
+    private boolean aggregate;
+    private boolean deltaOnly;
+    private boolean cacheEnabled;
+    private File cacheDir;
+    private long cacheMaxSizeMb;
+    private int cacheMaxAgeDays;
+    private boolean httpCacheEnabled;
+    private File httpCacheDir;
+
+    // a plain copy of the extension, so tasks read their configuration without touching the project
+    static CheckstyleGithubSettings of(CheckstyleGithubPluginExtension extension) {
+        final CheckstyleGithubSettings settings = new CheckstyleGithubSettings();
+        settings.setToolVersion(extension.getToolVersion().getOrNull());
+        settings.setGhEndpoint(extension.getGhEndpoint().getOrNull());
+        settings.setGhRepository(extension.getGhRepository().getOrNull());
+        settings.setConfigLocation(extension.getConfigLocation().getOrNull());
+        settings.setIncludes(extension.getIncludes().get());
+        settings.setExcludes(extension.getExcludes().get());
+        settings.setPublisher(extension.getPublisher().getOrNull());
+        settings.setReviewBatchSize(extension.getReviewBatchSize().get());
+        settings.setPublishConcurrency(extension.getPublishConcurrency().get());
+        settings.setPullRequestConcurrency(extension.getPullRequestConcurrency().get());
+        settings.setParallelism(extension.getParallelism().get());
+        settings.setIsolation(extension.getIsolation().getOrNull());
+        settings.setAggregate(extension.getAggregate().get());
+        settings.setDeltaOnly(extension.getDeltaOnly().get());
+        settings.setCacheEnabled(extension.getCacheEnabled().get());
+        settings.setCacheDir(extension.getCacheDir().getAsFile().getOrNull());
+        settings.setCacheMaxSizeMb(extension.getCacheMaxSizeMb().get());
+        settings.setCacheMaxAgeDays(extension.getCacheMaxAgeDays().get());
+        settings.setHttpCacheEnabled(extension.getHttpCacheEnabled().get());
+        settings.setHttpCacheDir(extension.getHttpCacheDir().getAsFile().getOrNull());
+        return settings;
+    }
+
+    // a ruleset file relative to the project directory, or null when configLocation is a resource or url
+    File configFile(File projectDir) {
+        if (StringUtils.isBlank(configLocation)) {
+            return null;
+        }
+
+        File file = new File(configLocation);
+
+        if (!file.isAbsolute()) {
+            file = new File(projectDir, file.getPath());
+        }
+
+        return file.isFile() ? file : null;
+    }
+
+    String resolveConfigLocation(File projectDir) {
+        final File configFile = configFile(projectDir);
+        return configFile != null ? configFile.getAbsolutePath() : configLocation;
+    }
+
+    void validate() {
+        if (StringUtils.isBlank(toolVersion)) {
+            throw new GradleException("'toolVersion' required!");
+        }
+
+        if (StringUtils.isBlank(configLocation)) {
+            throw new GradleException("'configLocation' required!");
+        }
+
+        if (!Arrays.asList(
+            CheckstyleGithubPluginExtension.PUBLISHER_COMMENTS,
+            CheckstyleGithubPluginExtension.PUBLISHER_CHECKS).contains(publisher)) {
+            throw new GradleException("'publisher' must be one of 'comments' or 'checks'!");
+        }
+
+        if (reviewBatchSize < 0) {
+            throw new GradleException("'reviewBatchSize' must not be negative!");
+        }
+
+        if (publishConcurrency < 1) {
+            throw new GradleException("'publishConcurrency' must be positive!");
+        }
+
+        if (pullRequestConcurrency < 1) {
+            throw new GradleException("'pullRequestConcurrency' must be positive!");
+        }
+
+        if (parallelism < 1) {
+            throw new GradleException("'parallelism' must be positive!");
+        }
+
+        if (!Arrays.asList(
+            CheckstyleGithubPluginExtension.ISOLATION_NONE,
+            CheckstyleGithubPluginExtension.ISOLATION_CLASSLOADER,
+            CheckstyleGithubPluginExtension.ISOLATION_PROCESS).contains(isolation)) {
+            throw new GradleException("'isolation' must be one of 'none', 'classloader' or 'process'!");
+        }
+
+        if (cacheEnabled && cacheDir == null) {
+            throw new GradleException("'cacheDir' required!");
+        }
+
+        if (httpCacheEnabled && httpCacheDir == null) {
+            throw new GradleException("'httpCacheDir' required!");
+        }
+    }
+
+    void validateGithub() {
+        validate();
+
+        if (StringUtils.isBlank(ghEndpoint)) {
+            throw new GradleException("'ghEndpoint' required!");
+        }
+
+        if (StringUtils.isBlank(ghRepository)) {
+            throw new GradleException("'ghRepository' required!");
+        }
+    }
+
+    boolean isChecksPublisher() {
+        return CheckstyleGithubPluginExtension.PUBLISHER_CHECKS.equals(publisher);
+    }
+
+    PathFilter buildPathFilter() {
+        return PathFilter.compile(includes, excludes);
+    }
+
+    CheckstyleResultCache buildCache() {
+        if (!cacheEnabled) {
+            return null;
+        }
+
+        return new CheckstyleResultCache(
+            cacheDir,
+            toolVersion,
+            cacheMaxSizeMb * 1024 * 1024,
+            TimeUnit.DAYS.toMillis(cacheMaxAgeDays)
+        );
+    }
+}
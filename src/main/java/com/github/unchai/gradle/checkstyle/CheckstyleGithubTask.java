@@ -18,139 +18,562 @@
  */
 package com.github.unchai.gradle.checkstyle;
 
-import java.io.IOException;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
+import javax.inject.Inject;
+
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
-import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
 import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHPullRequestReviewComment;
 import org.kohsuke.github.GitHub;
-import org.kohsuke.github.GitHubBuilder;
-
-import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
-import lombok.Setter;
 
-@Setter
-@CacheableTask
 public class CheckstyleGithubTask extends DefaultTask {
-    @Option(option = "githubOAuth", description = "Github oauth token")
-    private String githubOAuth;
+    // github refuses longer commit status descriptions
+    private static final int MAX_STATUS_DESCRIPTION = 140;
+
+    private final WorkerExecutor workerExecutor;
+    private final FileSystemOperations fileSystemOperations;
+    private final Property<String> githubOAuth = getProject().getObjects().property(String.class);
+    private final Property<String> githubToken = getProject().getObjects().property(String.class);
+    private final Property<String> githubPullRequest = getProject().getObjects().property(String.class);
+    private final Property<String> diffBase = getProject().getObjects().property(String.class);
+    private final Property<String> diffHead = getProject().getObjects().property(String.class).convention("HEAD");
+    private final Property<CheckstyleGithubSettings> settings =
+        getProject().getObjects().property(CheckstyleGithubSettings.class);
+    private final Property<GithubHttpService> httpService = getProject().getObjects().property(GithubHttpService.class);
+    private final Property<CheckerPoolService> checkerPoolService =
+        getProject().getObjects().property(CheckerPoolService.class);
+    private final ConfigurableFileCollection checkstyleClasspath = getProject().files();
+    private final Provider<Directory> buildDirectory = getProject().getLayout().getBuildDirectory();
+    private final ConfigurableFileCollection resultsFiles =
+        getProject().files(buildDirectory.map(dir -> dir.file(ReportFiles.RESULTS)));
+    private final File projectDir = getProject().getProjectDir();
+
+    @Inject
+    public CheckstyleGithubTask(WorkerExecutor workerExecutor, FileSystemOperations fileSystemOperations) {
+        this.workerExecutor = workerExecutor;
+        this.fileSystemOperations = fileSystemOperations;
+    }
+
+    @Internal
+    @Option(
+        option = "githubOAuth",
+        description = "Github oauth token, a GitHub App installation token with publisher = \"checks\". "
+            + "Defaults to the GITHUB_TOKEN environment variable"
+    )
+    public Property<String> getGithubOAuth() {
+        return githubOAuth;
+    }
+
+    // used without --githubOAuth, whose value ends up in the configuration cache
+    @Internal
+    public Property<String> getGithubToken() {
+        return githubToken;
+    }
+
+    @Internal
+    @Option(option = "githubPullRequest", description = "Github pull request id, or a list of ids and ranges such as 12,15,20-25")
+    public Property<String> getGithubPullRequest() {
+        return githubPullRequest;
+    }
+
+    @Internal
+    @Option(option = "diffBase", description = "Git revision to compute the changed lines against locally")
+    public Property<String> getDiffBase() {
+        return diffBase;
+    }
+
+    @Internal
+    @Option(option = "diffHead", description = "Git revision of the pull request head (default: HEAD)")
+    public Property<String> getDiffHead() {
+        return diffHead;
+    }
 
-    @Option(option = "githubPullRequest", description = "Github pull request id")
-    private String githubPullRequest;
+    @Internal
+    public Property<CheckstyleGithubSettings> getSettings() {
+        return settings;
+    }
+
+    @Internal
+    public Property<GithubHttpService> getHttpService() {
+        return httpService;
+    }
+
+    // batch mode checks the pull requests itself, with the same checkers as the check task
+    @Internal
+    public Property<CheckerPoolService> getCheckerPoolService() {
+        return checkerPoolService;
+    }
+
+    @Internal
+    public ConfigurableFileCollection getCheckstyleClasspath() {
+        return checkstyleClasspath;
+    }
+
+    @InputFile
+    @Optional
+    public File getChangedFilesFile() {
+        return runsBatch() ? null : new File(buildDirectory.get().getAsFile(), ReportFiles.CHANGED_FILES);
+    }
+
+    @InputFiles
+    public ConfigurableFileCollection getResultsFiles() {
+        return resultsFiles;
+    }
 
     @TaskAction
     public void action() {
-        final CheckstyleGithubPluginExtension extension =
-            (CheckstyleGithubPluginExtension)this.getProject().getExtensions().getByName(CheckstyleGithubPlugin.TOOL_NAME);
+        final CheckstyleGithubSettings settings = this.settings.get();
+        final String githubOAuth = this.githubOAuth.isPresent() ? this.githubOAuth.get() : githubToken.getOrNull();
+
+        settings.validateGithub();
+
+        final TaskMetrics metrics = new TaskMetrics(getName());
+        final GithubHttpService httpService = this.httpService.get();
+        final GithubHttpStats httpStats = new GithubHttpStats();
+
+        try {
+            if (runsBatch()) {
+                final GitHub github = metrics.time(
+                    TaskMetrics.CONNECT,
+                    () -> GithubHelper.connect(settings.getGhEndpoint(), githubOAuth, httpService.newClient(httpStats))
+                );
+
+                batch(settings, githubOAuth, github, PullRequests.parse(githubPullRequest.getOrNull()), metrics);
+            } else {
+                final GithubHelper githubHelper = metrics.time(TaskMetrics.CONNECT, () -> GithubHelper.connect(
+                    settings.getGhEndpoint(),
+                    githubOAuth,
+                    settings.getGhRepository(),
+                    NumberUtils.toInt(githubPullRequest.getOrNull()),
+                    httpService.newClient(httpStats)
+                ));
+
+                publish(settings, githubOAuth, githubHelper, getChangedFilesFile(), resultsFiles, metrics);
+            }
+        } finally {
+            GithubHelper.logHttpCache(httpService, httpStats, getLogger());
+        }
+
+        metrics.setHttpStats(httpStats);
+        metrics.write(ReportFiles.metricsFile(buildDirectory.get().getAsFile(), getName()), getLogger());
+    }
+
+    // more than one pull request: each one is listed, checked in its own worktree and published by this task alone
+    boolean runsBatch() {
+        return PullRequests.parse(githubPullRequest.getOrNull()).size() > 1;
+    }
+
+    private void batch(
+        CheckstyleGithubSettings settings,
+        String githubOAuth,
+        GitHub github,
+        List<Integer> pullRequests,
+        TaskMetrics metrics) {
+
+        final PathFilter pathFilter = settings.buildPathFilter();
+        final ExecutorService executor =
+            Executors.newFixedThreadPool(Math.min(settings.getPullRequestConcurrency(), pullRequests.size()));
+        final Map<Integer, GithubHelper> githubHelpers = new ConcurrentSkipListMap<>();
+        final Map<Integer, Throwable> failures = new ConcurrentSkipListMap<>();
+        // phases of pull requests handled concurrently would add up their thread time, so each one has its own
+        final Map<Integer, TaskMetrics> metricsByPullRequest = new ConcurrentSkipListMap<>();
+        // marked pending on github, so each of them must end with a status even if it fails on the way
+        final Map<Integer, GithubHelper> pending = new ConcurrentSkipListMap<>();
+        final Set<Integer> published = ConcurrentHashMap.newKeySet();
+
+        final File buildDir = buildDirectory.get().getAsFile();
+
+        fileSystemOperations.delete(spec -> spec.delete(getTemporaryDir()));
+
+        try (GitWorktrees worktrees = new GitWorktrees(projectDir, getTemporaryDir())) {
+            metrics.time(TaskMetrics.PREPARE, () -> runAll(executor, pullRequests, failures, pullRequest -> {
+                final TaskMetrics pullRequestMetrics = new TaskMetrics(getName() + " #" + pullRequest);
+                metricsByPullRequest.put(pullRequest, pullRequestMetrics);
+
+                final GithubHelper githubHelper =
+                    prepare(settings, github, pullRequest, pathFilter, buildDir, pending, pullRequestMetrics);
+
+                if (githubHelper != null) {
+                    githubHelpers.put(pullRequest, githubHelper);
+                } else {
+                    metricsByPullRequest.remove(pullRequest);
+                }
+            }));
+
+            if (githubHelpers.isEmpty()) {
+                throwFailures(failures);
+                return;
+            }
+
+            metrics.time(TaskMetrics.FETCH_HEADS, () -> fetch(worktrees, githubHelpers.keySet(), failures));
+            githubHelpers.keySet().removeAll(failures.keySet());
+
+            metrics.time(TaskMetrics.CHECK, () -> {
+                // every pull request goes to the same queue, so the warm checkers are shared between them
+                final WorkQueue workQueue = CheckstyleGithubCheckTask.workQueue(workerExecutor, settings, checkstyleClasspath);
+                final String configLocation = settings.resolveConfigLocation(projectDir);
+                final File checkDir = new File(getTemporaryDir(), "check");
+
+                for (Integer pullRequest : githubHelpers.keySet()) {
+                    final File dir = ReportFiles.pullRequestDir(buildDir, pullRequest);
+                    final File resultsFile = new File(dir, ReportFiles.PULL_REQUEST_RESULTS);
+
+                    fileSystemOperations.delete(spec -> spec.delete(resultsFile));
+
+                    try {
+                        final File worktree = worktrees.add(pullRequest);
+                        final File changedFilesFile = new File(dir, ReportFiles.PULL_REQUEST_CHANGED_FILES);
+
+                        if (settings.isDeltaOnly()) {
+                            final List<ChangedFile> changedFiles = ReportFiles.readChangedFiles(changedFilesFile);
+
+                            metricsByPullRequest.get(pullRequest).time(TaskMetrics.RESOLVE_BASE, () -> new GitDiffReader(worktree)
+                                .resolveBaseBlobs(githubHelpers.get(pullRequest).getBaseSha(), "HEAD", changedFiles));
+
+                            ReportFiles.writeChangedFiles(changedFilesFile, changedFiles);
+                        }
+
+                        CheckstyleGithubCheckTask.check(
+                            workQueue,
+                            settings,
+                            configLocation,
+                            checkerPoolService,
+                            checkDir,
+                            worktree,
+                            changedFilesFile,
+                            resultsFile
+                        );
+                    } catch (GradleException e) {
+                        fail(pullRequest, e, failures);
+                    }
+                }
+
+                if (workQueue != null) {
+                    try {
+                        workQueue.await();
+                    } catch (GradleException e) {
+                        // the queue fails as a whole, the work of a pull request failed when it left no results
+                        for (Integer pullRequest : githubHelpers.keySet()) {
+                            final File dir = ReportFiles.pullRequestDir(buildDir, pullRequest);
+
+                            if (!failures.containsKey(pullRequest) && !new File(dir, ReportFiles.PULL_REQUEST_RESULTS).isFile()) {
+                                fail(pullRequest, e, failures);
+                            }
+                        }
+                    }
+                }
+            });
+            githubHelpers.keySet().removeAll(failures.keySet());
+
+            metrics.time(TaskMetrics.PUBLISH, () -> runAll(executor, new ArrayList<>(githubHelpers.keySet()), failures, pullRequest -> {
+                final File dir = ReportFiles.pullRequestDir(buildDir, pullRequest);
 
-        extension.validate();
+                publish(
+                    settings,
+                    githubOAuth,
+                    githubHelpers.get(pullRequest),
+                    new File(dir, ReportFiles.PULL_REQUEST_CHANGED_FILES),
+                    Collections.singletonList(new File(dir, ReportFiles.PULL_REQUEST_RESULTS)),
+                    metricsByPullRequest.get(pullRequest)
+                );
+                published.add(pullRequest);
+            }));
+        } finally {
+            executor.shutdownNow();
 
-        final String projectDir = this.getProject().getProjectDir().getPath();
+            for (Map.Entry<Integer, GithubHelper> entry : pending.entrySet()) {
+                if (!published.contains(entry.getKey())) {
+                    metricsByPullRequest.get(entry.getKey()).time(
+                        TaskMetrics.STATUS,
+                        () -> changeStatusToError(entry.getValue(), failures.get(entry.getKey()))
+                    );
+                }
+            }
+
+            for (Map.Entry<Integer, TaskMetrics> entry : metricsByPullRequest.entrySet()) {
+                metrics.addFiles(entry.getValue().getFiles());
+                metrics.addViolations(entry.getValue().getViolations());
+                entry.getValue().write(new File(ReportFiles.pullRequestDir(buildDir, entry.getKey()), ReportFiles.PULL_REQUEST_METRICS));
+            }
+        }
 
-        final GithubHelper githubHelper;
+        throwFailures(failures);
+    }
 
+    // one fetch for all heads, and one per pull request only when that fails, to find the heads that broke it
+    private void fetch(GitWorktrees worktrees, Collection<Integer> pullRequests, Map<Integer, Throwable> failures) {
         try {
-            final GitHub github = new GitHubBuilder().withEndpoint(extension.getGhEndpoint()).withOAuthToken(githubOAuth).build();
-            githubHelper = new GithubHelper(github, extension.getGhRepository(), NumberUtils.toInt(githubPullRequest));
-        } catch (IOException e) {
-            throw new GradleException("Cannot connect github.");
+            worktrees.fetch(pullRequests);
+            return;
+        } catch (GradleException e) {
+            if (pullRequests.size() == 1) {
+                fail(pullRequests.iterator().next(), e, failures);
+                return;
+            }
         }
 
-        githubHelper.changeStatus(GHCommitState.PENDING, null);
+        for (Integer pullRequest : pullRequests) {
+            try {
+                worktrees.fetch(Collections.singletonList(pullRequest));
+            } catch (GradleException e) {
+                fail(pullRequest, e, failures);
+            }
+        }
+    }
+
+    private GithubHelper prepare(
+        CheckstyleGithubSettings settings,
+        GitHub github,
+        int pullRequest,
+        PathFilter pathFilter,
+        File buildDir,
+        Map<Integer, GithubHelper> pending,
+        TaskMetrics metrics) {
 
-        final CheckstyleExecutor checkstyleExecutor = new CheckstyleExecutor(extension.getConfigLocation());
+        final GithubHelper githubHelper = metrics.time(
+            TaskMetrics.CONNECT,
+            () -> GithubHelper.openPullRequest(github, settings.getGhRepository(), pullRequest)
+        );
 
-        final List<ChangedFile> changedFiles = githubHelper.listChangedFile();
+        if (githubHelper == null) {
+            getLogger().lifecycle("#{} is not an open pull request, skipped.", pullRequest);
+            return null;
+        }
 
-        final Map<String, ChangedFile> changedFileMap =
+        if (!settings.isChecksPublisher()) {
+            metrics.time(TaskMetrics.STATUS, () -> githubHelper.changeStatus(GHCommitState.PENDING, null));
+            pending.put(pullRequest, githubHelper);
+        }
+
+        final List<ChangedFile> changedFiles =
+            metrics.time(TaskMetrics.LIST_FILES, () -> githubHelper.listChangedFile(pathFilter, metrics));
+
+        ReportFiles.writeChangedFiles(
+            new File(ReportFiles.pullRequestDir(buildDir, pullRequest), ReportFiles.PULL_REQUEST_CHANGED_FILES),
             changedFiles
-                .stream()
-                .filter(changedFile -> changedFile.getPath().endsWith(".java"))
-                .collect(Collectors.toMap(ChangedFile::getPath, Function.identity()));
+        );
+
+        return githubHelper;
+    }
 
-        final List<CheckstyleError> checkstyleErrors =
-            checkstyleExecutor.execute(projectDir, changedFiles.stream().map(ChangedFile::getPath).collect(Collectors.toList()))
-                .stream()
-                .filter(checkstyleError -> contains(checkstyleError, changedFileMap))
-                .collect(Collectors.toList());
+    private void changeStatusToError(GithubHelper githubHelper, Throwable failure) {
+        final String description = failure == null ? "checkstyle did not finish." : "checkstyle failed: " + failure.getMessage();
 
-        final Collection<Comment> comments = buildComments(changedFileMap, checkstyleErrors);
-        final Map<SeverityLevel, Integer> severityLevelCountMap = buildSeverityLevelCountMap(checkstyleErrors);
+        try {
+            githubHelper.changeStatus(GHCommitState.ERROR, StringUtils.abbreviate(description, MAX_STATUS_DESCRIPTION));
+        } catch (GradleException e) {
+            getLogger().warn("#{} is left pending: {}", githubHelper.getPullRequestNumber(), e.getMessage());
+        }
+    }
+
+    private void fail(int pullRequest, GradleException e, Map<Integer, Throwable> failures) {
+        getLogger().error("#{} failed: {}", pullRequest, e.getMessage());
+        failures.put(pullRequest, e);
+    }
+
+    private void runAll(
+        ExecutorService executor,
+        List<Integer> pullRequests,
+        Map<Integer, Throwable> failures,
+        Consumer<Integer> action) {
 
-        githubHelper.removeAllComment();
+        final Map<Integer, Future<?>> futures = new LinkedHashMap<>();
 
-        for (Comment comment : comments) {
-            githubHelper.createComment(comment);
+        for (Integer pullRequest : pullRequests) {
+            futures.put(pullRequest, executor.submit(() -> action.accept(pullRequest)));
         }
 
-        if (severityLevelCountMap.get(SeverityLevel.WARNING) > 0 || severityLevelCountMap.get(SeverityLevel.ERROR) > 0) {
-            githubHelper.changeStatus(
-                GHCommitState.FAILURE,
-                String.format(
-                    "reported %d warnings, %d errors.",
-                    severityLevelCountMap.get(SeverityLevel.WARNING),
-                    severityLevelCountMap.get(SeverityLevel.ERROR)
-                )
-            );
-        } else {
-            githubHelper.changeStatus(GHCommitState.SUCCESS, "Good job! You kept all the rules.");
+        for (Map.Entry<Integer, Future<?>> entry : futures.entrySet()) {
+            try {
+                Background.await(entry.getValue());
+            } catch (GradleException e) {
+                fail(entry.getKey(), e, failures);
+            }
         }
+
     }
 
-    private boolean contains(CheckstyleError checkstyleError, Map<String, ChangedFile> changedFileMap) {
-        return changedFileMap.containsKey(checkstyleError.getPath())
-            && changedFileMap.get(checkstyleError.getPath()).getLinePositionMap().containsKey(checkstyleError.getLine());
+    private void throwFailures(Map<Integer, Throwable> failures) {
+        if (!failures.isEmpty()) {
+            throw new GradleException(
+                String.format("checkstyle failed for pull requests %s.", failures.keySet()),
+                failures.values().iterator().next()
+            );
+        }
     }
 
-    private Map<SeverityLevel, Integer> buildSeverityLevelCountMap(List<CheckstyleError> errors) {
-        final Map<SeverityLevel, Integer> map = new EnumMap<>(SeverityLevel.class);
+    private void publish(
+        CheckstyleGithubSettings settings,
+        String githubOAuth,
+        GithubHelper githubHelper,
+        File changedFilesFile,
+        Iterable<File> resultsFiles,
+        TaskMetrics metrics) {
+
+        final Future<List<GHPullRequestReviewComment>> myComments =
+            settings.isChecksPublisher() ? null : githubHelper.listMyCommentsAsync(metrics);
+
+        final Map<String, ChangedFile> changedFileMap = new HashMap<>();
+        final ViolationStore checkstyleErrors = new ViolationStore();
 
-        for (SeverityLevel severityLevel : SeverityLevel.values()) {
-            map.put(severityLevel, 0);
+        metrics.time(TaskMetrics.READ_RESULTS, () -> {
+            for (ChangedFile changedFile : ReportFiles.readChangedFiles(changedFilesFile)) {
+                changedFileMap.put(changedFile.getPath(), changedFile);
+            }
+
+            for (File resultsFile : resultsFiles) {
+                ReportFiles.forEachError(resultsFile, checkstyleErrors::add);
+            }
+        });
+
+        metrics.addFiles(changedFileMap.size());
+        metrics.addViolations(checkstyleErrors.size());
+
+        final Map<Severity, Integer> severityLevelCountMap = buildSeverityLevelCountMap(checkstyleErrors);
+
+        if (settings.isChecksPublisher()) {
+            final int calls = metrics.time(TaskMetrics.POST_COMMENTS, () -> githubHelper.publishCheckRun(
+                githubOAuth,
+                checkstyleErrors,
+                severityLevelCountMap,
+                settings.getPublishConcurrency()
+            ));
+
+            getLogger().lifecycle(
+                "checkstyle check run on #{}: {} annotations in {} API calls.",
+                githubHelper.getPullRequestNumber(),
+                checkstyleErrors.size(),
+                calls
+            );
+            return;
         }
 
-        for (CheckstyleError error : errors) {
-            map.put(error.getSeverityLevel(), map.get(error.getSeverityLevel()) + 1);
+        final Collection<Comment> comments = buildComments(changedFileMap, checkstyleErrors);
+
+        final CommentReconciler.Reconciliation reconciliation =
+            githubHelper.reconcileComments(
+                myComments,
+                comments,
+                settings.getReviewBatchSize(),
+                settings.getPublishConcurrency(),
+                metrics
+            );
+
+        getLogger().lifecycle(
+            "checkstyle comments on #{}: {} kept, {} deleted, {} created ({} API calls saved).",
+            githubHelper.getPullRequestNumber(),
+            reconciliation.getUnchangedCount(),
+            reconciliation.getStaleComments().size(),
+            reconciliation.getNewComments().size(),
+            reconciliation.getSavedCalls(settings.getReviewBatchSize())
+        );
+
+        metrics.time(TaskMetrics.STATUS, () -> {
+            if (severityLevelCountMap.get(Severity.WARNING) > 0 || severityLevelCountMap.get(Severity.ERROR) > 0) {
+                githubHelper.changeStatus(
+                    GHCommitState.FAILURE,
+                    String.format(
+                        "reported %d warnings, %d errors.",
+                        severityLevelCountMap.get(Severity.WARNING),
+                        severityLevelCountMap.get(Severity.ERROR)
+                    )
+                );
+            } else {
+                githubHelper.changeStatus(GHCommitState.SUCCESS, "Good job! You kept all the rules.");
+            }
+        });
+    }
+
+    static Map<Severity, Integer> buildSeverityLevelCountMap(ViolationStore errors) {
+        final Map<Severity, Integer> map = new EnumMap<>(Severity.class);
+        final int[] counts = errors.countBySeverity();
+
+        for (Severity severityLevel : Severity.values()) {
+            map.put(severityLevel, counts[severityLevel.ordinal()]);
         }
 
         return map;
     }
 
-    private Collection<Comment> buildComments(Map<String, ChangedFile> changedFileMap, List<CheckstyleError> errors) {
-        final Map<String, Comment> commentMap = new HashMap<>();
+    static Collection<Comment> buildComments(Map<String, ChangedFile> changedFileMap, ViolationStore errors) {
+        // bucket the violations by path, then sort each bucket by line packed with the index into a long
+        final int[] offsets = new int[errors.pathCount() + 1];
+
+        for (int i = 0; i < errors.size(); i++) {
+            offsets[errors.getPathId(i) + 1]++;
+        }
+
+        for (int pathId = 0; pathId < errors.pathCount(); pathId++) {
+            offsets[pathId + 1] += offsets[pathId];
+        }
 
-        for (CheckstyleError error : errors) {
-            final String path = error.getPath();
-            final String key = path + "|" + error.getLine();
+        final long[] sorted = new long[errors.size()];
+        final int[] next = Arrays.copyOf(offsets, errors.pathCount());
 
-            if (commentMap.containsKey(key)) {
-                final Comment comment = commentMap.get(key);
-                comment.getCheckstyleErrors().add(error);
-            } else {
-                final List<CheckstyleError> checkstyleErrors = new ArrayList<>();
-                checkstyleErrors.add(error);
+        for (int i = 0; i < errors.size(); i++) {
+            sorted[next[errors.getPathId(i)]++] = (long)errors.getLine(i) << 32 | i;
+        }
+
+        final List<Comment> comments = new ArrayList<>();
+
+        for (int pathId = 0; pathId < errors.pathCount(); pathId++) {
+            Arrays.sort(sorted, offsets[pathId], offsets[pathId + 1]);
+
+            Comment comment = null;
+            int line = 0;
+
+            for (int i = offsets[pathId]; i < offsets[pathId + 1]; i++) {
+                final int index = (int)sorted[i];
+
+                if (comment == null || errors.getLine(index) != line) {
+                    final String path = errors.getPath(index);
+                    line = errors.getLine(index);
+
+                    comment = new Comment();
+                    comment.setPath(path);
+                    comment.setPosition(changedFileMap.get(path).getLinePositionIndex().getPosition(line));
+                    comment.setCheckstyleErrors(new ArrayList<>());
 
-                final Comment comment = new Comment();
-                comment.setPath(path);
-                comment.setPosition(changedFileMap.get(path).getLinePositionMap().get(error.getLine()));
-                comment.setCheckstyleErrors(checkstyleErrors);
+                    comments.add(comment);
+                }
 
-                commentMap.put(key, comment);
+                comment.getCheckstyleErrors().add(errors.get(index));
             }
         }
 
-        return commentMap.values();
+        return comments;
     }
 }
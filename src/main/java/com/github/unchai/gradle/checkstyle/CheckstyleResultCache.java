@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+public class CheckstyleResultCache {
+    private static final String FORMAT_VERSION = "4";
+    private static final String ENTRY_SUFFIX = ".txt";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // mtime is the last eviction, content the cache size it left behind
+    private static final String EVICTION_MARKER = ".evicted";
+    private static final long EVICTION_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private final Path directory;
+    private final String toolVersion;
+    private final long maxSize;
+    private final long maxAge;
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+    private final AtomicLong writtenBytes = new AtomicLong();
+
+    public CheckstyleResultCache(File directory, String toolVersion, long maxSize, long maxAge) {
+        this.directory = directory.toPath();
+        this.toolVersion = toolVersion;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+    }
+
+    // entries hold the violations of every line, so the same content hits the cache whichever lines a pull
+    // request changed, e.g. after a rebase
+    String key(String configurationHash, String path, byte[] content) {
+        final MessageDigest digest = Digests.sha256();
+        Digests.update(digest, FORMAT_VERSION);
+        Digests.update(digest, toolVersion);
+        Digests.update(digest, configurationHash);
+        Digests.update(digest, path);
+        digest.update(content);
+        return Digests.hex(digest.digest());
+    }
+
+    // base versions are checked as a whole, so their blob id is all that identifies the content
+    String baseKey(String configurationHash, String fileName, String blob) {
+        final MessageDigest digest = Digests.sha256();
+        Digests.update(digest, FORMAT_VERSION);
+        Digests.update(digest, toolVersion);
+        Digests.update(digest, configurationHash);
+        Digests.update(digest, "base");
+        Digests.update(digest, fileName);
+        Digests.update(digest, blob);
+        return Digests.hex(digest.digest());
+    }
+
+    List<CheckstyleError> get(String key, String path) {
+        final Path entry = entry(key);
+
+        try (BufferedReader reader = Files.newBufferedReader(entry, StandardCharsets.UTF_8)) {
+            final List<CheckstyleError> errors = new ArrayList<>();
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split("\t", 4);
+
+                final CheckstyleError error = new CheckstyleError();
+                error.setSeverityLevel(Severity.valueOf(fields[0]));
+                error.setPath(path);
+                error.setLine(Integer.parseInt(fields[1]));
+                error.setSource(fields[2]);
+                error.setMessage(unescape(fields[3]));
+
+                errors.add(error);
+            }
+
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            hitCount.incrementAndGet();
+
+            return errors;
+        } catch (IOException | RuntimeException e) {
+            missCount.incrementAndGet();
+            return null;
+        }
+    }
+
+    void put(String key, List<CheckstyleError> errors) {
+        final Path entry = entry(key);
+        final Path temp = entry.resolveSibling(key + "." + UUID.randomUUID() + TEMP_SUFFIX);
+
+        try {
+            Files.createDirectories(entry.getParent());
+
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (CheckstyleError error : errors) {
+                    writer.write(error.getSeverityLevel().name());
+                    writer.write('\t');
+                    writer.write(Integer.toString(error.getLine()));
+                    writer.write('\t');
+                    writer.write(error.getSource());
+                    writer.write('\t');
+                    writer.write(escape(error.getMessage()));
+                    writer.write('\n');
+                }
+            }
+
+            writtenBytes.addAndGet(Files.size(temp));
+
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // a cache that cannot be written only costs a re-check next time
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // do nothing
+            }
+        }
+    }
+
+    // walking a shared cache is expensive, so it happens at most once per interval unless this run alone may have
+    // pushed the cache over its size limit
+    void evict() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        final Path marker = directory.resolve(EVICTION_MARKER);
+
+        if (!isEvictionDue(marker)) {
+            return;
+        }
+
+        try {
+            // claimed before the walk, so concurrent builds don't walk the cache at the same time
+            Files.write(marker, new byte[0]);
+        } catch (IOException e) {
+            return;
+        }
+
+        final long expiredBefore = System.currentTimeMillis() - maxAge;
+        final List<Path> entries;
+
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            entries = files.filter(Files::isRegularFile).filter(file -> !file.equals(marker)).collect(Collectors.toList());
+        } catch (IOException e) {
+            return;
+        }
+
+        final List<Path> survivors = new ArrayList<>();
+        long totalSize = 0;
+
+        for (Path entry : entries) {
+            try {
+                if (Files.getLastModifiedTime(entry).toMillis() < expiredBefore) {
+                    Files.deleteIfExists(entry);
+                } else if (entry.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+                    survivors.add(entry);
+                    totalSize += Files.size(entry);
+                }
+            } catch (IOException e) {
+                // removed by another build in the meantime
+            }
+        }
+
+        if (totalSize > maxSize) {
+            survivors.sort(Comparator.comparingLong(CheckstyleResultCache::lastModified));
+
+            for (Path entry : survivors) {
+                if (totalSize <= maxSize) {
+                    break;
+                }
+
+                try {
+                    final long size = Files.size(entry);
+                    Files.deleteIfExists(entry);
+                    totalSize -= size;
+                } catch (IOException e) {
+                    // removed by another build in the meantime
+                }
+            }
+        }
+
+        try {
+            Files.write(marker, Long.toString(totalSize).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // evicted again next time
+        }
+    }
+
+    private boolean isEvictionDue(Path marker) {
+        try {
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(marker).toMillis() >= EVICTION_INTERVAL) {
+                return true;
+            }
+
+            final String size = new String(Files.readAllBytes(marker), StandardCharsets.UTF_8).trim();
+            return !size.isEmpty() && Long.parseLong(size) + writtenBytes.get() > maxSize;
+        } catch (IOException | NumberFormatException e) {
+            return true;
+        }
+    }
+
+    int getHitCount() {
+        return hitCount.get();
+    }
+
+    int getMissCount() {
+        return missCount.get();
+    }
+
+    static String hash(Configuration configuration) throws CheckstyleException {
+        final MessageDigest digest = Digests.sha256();
+        update(digest, configuration);
+        return Digests.hex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, Configuration configuration) throws CheckstyleException {
+        Digests.update(digest, configuration.getName());
+
+        final String[] attributeNames = configuration.getAttributeNames().clone();
+        Arrays.sort(attributeNames);
+
+        for (String attributeName : attributeNames) {
+            final String value = configuration.getAttribute(attributeName);
+
+            Digests.update(digest, attributeName);
+            Digests.update(digest, value);
+
+            // suppressions, headers, import control and the like change the results without changing the ruleset
+            if (!ConfigReferences.CACHE_FILE_PROPERTY.equals(attributeName) && new File(value).isFile()) {
+                updateContent(digest, new File(value));
+            }
+        }
+
+        for (Map.Entry<String, String> message : new TreeMap<>(configuration.getMessages()).entrySet()) {
+            Digests.update(digest, message.getKey());
+            Digests.update(digest, message.getValue());
+        }
+
+        for (Configuration child : configuration.getChildren()) {
+            Digests.update(digest, "{");
+            update(digest, child);
+            Digests.update(digest, "}");
+        }
+    }
+
+    private static void updateContent(MessageDigest digest, File file) throws CheckstyleException {
+        try {
+            digest.update(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            throw new CheckstyleException(e.getMessage(), e);
+        }
+    }
+
+    private Path entry(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ENTRY_SUFFIX);
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        final StringBuilder builder = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            if (c == '\\' && i + 1 < value.length()) {
+                final char next = value.charAt(++i);
+                builder.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.util.List;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.workers.WorkAction;
+
+public abstract class CheckstyleWorkAction implements WorkAction<CheckstyleWorkParameters> {
+    private static final Logger LOGGER = Logging.getLogger(CheckstyleWorkAction.class);
+
+    // one pool per isolated classloader, so warm checkers survive between tasks sharing a worker. it outlives the
+    // build in a reused worker process, so it re-reads the ruleset and its suppressions, headers, ... on every use,
+    // and never keeps checkers of rulesets whose file set checks remember the files of an earlier build
+    static final CheckerPool POOL = new CheckerPool();
+
+    @Override
+    public void execute() {
+        final CheckstyleWorkParameters parameters = getParameters();
+
+        final CheckstyleResultCache cache = parameters.getCacheEnabled().get()
+            ? new CheckstyleResultCache(
+                parameters.getCacheDir().get().getAsFile(),
+                parameters.getToolVersion().get(),
+                parameters.getCacheMaxSize().get(),
+                parameters.getCacheMaxAge().get())
+            : null;
+
+        check(
+            new CheckstyleExecutor(
+                parameters.getConfigLocation().get(),
+                parameters.getParallelism().get(),
+                cache,
+                POOL,
+                parameters.getDeltaOnly().get() ? parameters.getTemporaryDir().get().getAsFile() : null),
+            cache,
+            parameters.getBaseDir().get().getAsFile(),
+            parameters.getChangedFilesFile().get().getAsFile(),
+            parameters.getResultsFile().get().getAsFile()
+        );
+    }
+
+    static void check(
+        CheckstyleExecutor executor,
+        CheckstyleResultCache cache,
+        File baseDir,
+        File changedFilesFile,
+        File resultsFile) {
+
+        final List<CheckstyleError> checkstyleErrors =
+            executor.execute(baseDir.getPath(), ReportFiles.readChangedFiles(changedFilesFile));
+
+        if (cache != null) {
+            LOGGER.lifecycle("checkstyle cache: {} hits, {} misses.", cache.getHitCount(), cache.getMissCount());
+        }
+
+        ReportFiles.writeErrors(resultsFile, checkstyleErrors);
+    }
+}
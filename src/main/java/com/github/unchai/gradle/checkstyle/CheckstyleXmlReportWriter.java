@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+class CheckstyleXmlReportWriter implements ReportWriter {
+    private final OutputStream out;
+    private final XMLStreamWriter writer;
+    private String currentPath;
+
+    CheckstyleXmlReportWriter(File file, String toolVersion) throws IOException {
+        file.getParentFile().mkdirs();
+
+        this.out = new BufferedOutputStream(Files.newOutputStream(file.toPath()));
+
+        try {
+            this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            this.writer.writeStartDocument("UTF-8", "1.0");
+            this.writer.writeStartElement("checkstyle");
+            this.writer.writeAttribute("version", toolVersion);
+        } catch (XMLStreamException e) {
+            out.close();
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void write(CheckstyleError error) throws IOException {
+        try {
+            if (!error.getPath().equals(currentPath)) {
+                if (currentPath != null) {
+                    writer.writeEndElement();
+                }
+
+                writer.writeStartElement("file");
+                writer.writeAttribute("name", error.getPath());
+                currentPath = error.getPath();
+            }
+
+            writer.writeEmptyElement("error");
+            writer.writeAttribute("line", Integer.toString(error.getLine()));
+            writer.writeAttribute("severity", error.getSeverityLevel().name().toLowerCase(Locale.ENGLISH));
+            writer.writeAttribute("message", error.getMessage());
+
+            if (error.getSource() != null) {
+                writer.writeAttribute("source", error.getSource());
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (currentPath != null) {
+                writer.writeEndElement();
+            }
+
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.kohsuke.github.GHPullRequestReviewComment;
+
+import lombok.Data;
+
+class CommentReconciler {
+    private final Function<Comment, String> bodyBuilder;
+
+    CommentReconciler(Function<Comment, String> bodyBuilder) {
+        this.bodyBuilder = bodyBuilder;
+    }
+
+    Reconciliation reconcile(List<GHPullRequestReviewComment> existingComments, Collection<Comment> comments) {
+        final Map<String, Deque<GHPullRequestReviewComment>> index = new HashMap<>();
+
+        for (GHPullRequestReviewComment existing : existingComments) {
+            index.computeIfAbsent(
+                key(existing.getPath(), existing.getPosition(), existing.getBody()),
+                key -> new ArrayDeque<>()
+            ).add(existing);
+        }
+
+        final Reconciliation reconciliation = new Reconciliation();
+
+        for (Comment comment : comments) {
+            final Deque<GHPullRequestReviewComment> matches =
+                index.get(key(comment.getPath(), comment.getPosition(), this.bodyBuilder.apply(comment)));
+
+            if (matches != null && !matches.isEmpty()) {
+                matches.poll();
+                reconciliation.unchangedCount++;
+            } else {
+                reconciliation.newComments.add(comment);
+            }
+        }
+
+        for (Deque<GHPullRequestReviewComment> remains : index.values()) {
+            reconciliation.staleComments.addAll(remains);
+        }
+
+        return reconciliation;
+    }
+
+    private String key(String path, int position, String body) {
+        return path + "|" + position + "|" + fingerprint(body);
+    }
+
+    static String fingerprint(String body) {
+        return Digests.sha256Hex(body.replace("\r\n", "\n").trim());
+    }
+
+    @Data
+    static class Reconciliation {
+        private final List<GHPullRequestReviewComment> staleComments = new ArrayList<>();
+        private final List<Comment> newComments = new ArrayList<>();
+        private int unchangedCount;
+
+        // compared to deleting every existing comment and creating them all again, reviews of batchSize comments
+        // each, or one call per comment when batchSize is 0
+        int getSavedCalls(int batchSize) {
+            final int newCount = this.newComments.size();
+
+            return this.unchangedCount + createCalls(newCount + this.unchangedCount, batchSize) - createCalls(newCount, batchSize);
+        }
+
+        private static int createCalls(int comments, int batchSize) {
+            return batchSize > 0 ? (comments + batchSize - 1) / batchSize : comments;
+        }
+    }
+}
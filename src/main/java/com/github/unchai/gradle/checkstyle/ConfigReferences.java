@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.gradle.api.GradleException;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+// files a checkstyle ruleset points to through module properties: suppressions, headers, import control and so on.
+// read with a plain xml parser, since checkstyle itself is only on the worker classpath
+final class ConfigReferences {
+    // checkstyle's own incremental cache, rewritten on every run
+    static final String CACHE_FILE_PROPERTY = "cacheFile";
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{([^}]+)}");
+
+    private ConfigReferences() {
+    }
+
+    static List<File> referencedFiles(File configFile, File projectDir) {
+        final Set<File> files = new LinkedHashSet<>();
+
+        try {
+            final SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+
+            factory.newSAXParser().parse(configFile, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if (!"property".equals(qName) || CACHE_FILE_PROPERTY.equals(attributes.getValue("name"))) {
+                        return;
+                    }
+
+                    final String value = expand(attributes.getValue("value"));
+
+                    if (value == null) {
+                        return;
+                    }
+
+                    // checkstyle resolves relative paths against the working directory, gradle users expect the project
+                    for (File candidate : new File[] {new File(value), new File(projectDir, value)}) {
+                        if (candidate.isFile()) {
+                            files.add(candidate.getAbsoluteFile());
+                        }
+                    }
+                }
+            });
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new GradleException(e.getMessage(), e);
+        }
+
+        return new ArrayList<>(files);
+    }
+
+    // same expansion as the worker's PropertiesExpander, null when a variable is unknown
+    private static String expand(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        final Matcher matcher = VARIABLE.matcher(value);
+        final StringBuffer buffer = new StringBuffer();
+
+        while (matcher.find()) {
+            final String replacement = System.getProperty(matcher.group(1));
+
+            if (replacement == null) {
+                return null;
+            }
+
+            matcher.appendReplacement(buffer, Matcher.quoteReplacement(replacement));
+        }
+
+        matcher.appendTail(buffer);
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.gradle.api.GradleException;
+
+class GitDiffReader {
+    private static final String DIFF_HEADER = "diff --git ";
+    private static final String OLD_FILE_HEADER = "--- ";
+    private static final String NEW_FILE_HEADER = "+++ ";
+    private static final String OLD_FILE_PREFIX = "a/";
+    private static final String NEW_FILE_PREFIX = "b/";
+    private static final String REMOTE = "origin";
+
+    private final File workingDir;
+    private final PathFilter pathFilter;
+
+    GitDiffReader(File workingDir) {
+        this(workingDir, PathFilter.ALL);
+    }
+
+    GitDiffReader(File workingDir, PathFilter pathFilter) {
+        this.workingDir = workingDir;
+        this.pathFilter = pathFilter;
+    }
+
+    List<ChangedFile> listChangedFile(String base, String head) {
+        final Process process;
+
+        try {
+            process = new ProcessBuilder(
+                Arrays.asList(
+                    "git", "-c", "core.quotepath=false", "diff",
+                    "--no-color", "--no-ext-diff", "--find-renames",
+                    // pin what user config (diff.context, diff.algorithm, diff.relative) could change
+                    "-U3", "--diff-algorithm=myers", "--no-relative",
+                    "--src-prefix=a/", "--dst-prefix=" + NEW_FILE_PREFIX,
+                    base + "..." + head
+                ))
+                .directory(workingDir)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        } catch (IOException e) {
+            throw new GradleException("Cannot run git.", e);
+        }
+
+        final List<ChangedFile> changedFiles;
+
+        try (BufferedReader reader =
+                 new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            changedFiles = read(reader);
+        } catch (IOException e) {
+            process.destroy();
+            throw new GradleException(e.getMessage(), e);
+        }
+
+        try {
+            if (process.waitFor() != 0) {
+                throw new GradleException(String.format("git diff %s...%s failed.", base, head));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException(e.getMessage(), e);
+        }
+
+        return changedFiles;
+    }
+
+    List<ChangedFile> read(BufferedReader reader) throws IOException {
+        final List<ChangedFile> changedFiles = new ArrayList<>();
+
+        String basePath = null;
+        String path = null;
+        PatchParser patch = null;
+        boolean skip = false;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(DIFF_HEADER)) {
+                addChangedFile(changedFiles, basePath, path, patch);
+                basePath = null;
+                path = null;
+                patch = null;
+                skip = false;
+            } else if (skip) {
+                continue;
+            } else if (patch != null) {
+                patch.line(line);
+            } else if (line.startsWith("@@")) {
+                patch = new PatchParser();
+                patch.line(line);
+            } else if (line.startsWith(OLD_FILE_HEADER)) {
+                basePath = parsePath(line.substring(OLD_FILE_HEADER.length()), OLD_FILE_PREFIX);
+            } else if (line.startsWith(NEW_FILE_HEADER)) {
+                path = parsePath(line.substring(NEW_FILE_HEADER.length()), NEW_FILE_PREFIX);
+                // excluded files are skipped up to the next file header without parsing their hunks
+                skip = path != null && !pathFilter.accepts(path);
+            }
+        }
+
+        addChangedFile(changedFiles, basePath, path, patch);
+
+        return changedFiles;
+    }
+
+    // sets the blob each changed file had at the merge base of base and head, fetching base if it is missing
+    void resolveBaseBlobs(String base, String head, List<ChangedFile> changedFiles) {
+        if (run(Arrays.asList("rev-parse", "--quiet", "--verify", base + "^{commit}"), null, false) == null) {
+            run(Arrays.asList("fetch", "--quiet", "--no-tags", REMOTE, base), null, true);
+        }
+
+        final String mergeBase = run(Arrays.asList("merge-base", base, head), null, true).get(0);
+        final List<ChangedFile> modified = new ArrayList<>();
+        final StringBuilder input = new StringBuilder();
+
+        for (ChangedFile changedFile : changedFiles) {
+            if (changedFile.getBasePath() != null) {
+                modified.add(changedFile);
+                input.append(mergeBase).append(':').append(changedFile.getBasePath()).append('\n');
+            }
+        }
+
+        if (modified.isEmpty()) {
+            return;
+        }
+
+        final List<String> objects = run(Arrays.asList("cat-file", "--batch-check"), input.toString(), true);
+
+        for (int i = 0; i < modified.size(); i++) {
+            final String[] fields = objects.get(i).split(" ");
+            modified.get(i).setBaseBlob("blob".equals(fields[fields.length - 2]) ? fields[0] : null);
+        }
+    }
+
+    // writes the base blob of every changed file that has one below dir, named like the changed file
+    Map<String, File> writeBaseFiles(Collection<ChangedFile> changedFiles, File dir) {
+        final Map<String, File> baseFiles = new HashMap<>();
+        final Process process = start(Arrays.asList("cat-file", "--batch"));
+
+        try (OutputStream stdin = process.getOutputStream();
+             InputStream stdout = new BufferedInputStream(process.getInputStream())) {
+
+            for (ChangedFile changedFile : changedFiles) {
+                final String blob = changedFile.getBaseBlob();
+
+                if (blob == null || baseFiles.containsKey(blob)) {
+                    continue;
+                }
+
+                stdin.write((blob + "\n").getBytes(StandardCharsets.UTF_8));
+                stdin.flush();
+
+                final String[] header = readLine(stdout).split(" ");
+
+                if (header.length != 3) {
+                    continue;
+                }
+
+                final File file = new File(new File(dir, blob), new File(changedFile.getPath()).getName());
+                Files.createDirectories(file.getParentFile().toPath());
+
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                    for (long remaining = Long.parseLong(header[2]); remaining > 0; remaining--) {
+                        out.write(stdout.read());
+                    }
+                }
+
+                stdout.read();
+                baseFiles.put(blob, file);
+            }
+        } catch (IOException e) {
+            process.destroy();
+            throw new GradleException(e.getMessage(), e);
+        }
+
+        waitFor(process, "cat-file --batch", true);
+
+        return baseFiles;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c < 0) {
+                throw new IOException("Unexpected end of git output.");
+            }
+
+            line.append((char)c);
+        }
+
+        return line.toString();
+    }
+
+    private Process start(List<String> args) {
+        final List<String> command = new ArrayList<>(Arrays.asList("git", "-c", "core.quotepath=false"));
+        command.addAll(args);
+
+        try {
+            return new ProcessBuilder(command)
+                .directory(workingDir)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        } catch (IOException e) {
+            throw new GradleException("Cannot run git.", e);
+        }
+    }
+
+    private boolean waitFor(Process process, String args, boolean required) {
+        try {
+            if (process.waitFor() != 0) {
+                if (required) {
+                    throw new GradleException(String.format("git %s failed.", args));
+                }
+
+                return false;
+            }
+
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+
+    private List<String> run(List<String> args, String input, boolean required) {
+        final Process process = start(args);
+
+        try {
+            // stdin is written in the background, so a large output cannot block it
+            final Future<?> writer = Background.start(() -> {
+                try (Writer stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8)) {
+                    if (input != null) {
+                        stdin.write(input);
+                    }
+                } catch (IOException e) {
+                    throw new GradleException(e.getMessage(), e);
+                }
+            });
+
+            final List<String> lines = new ArrayList<>();
+
+            try (BufferedReader reader =
+                     new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+
+            Background.await(writer);
+
+            return waitFor(process, String.join(" ", args), required) ? lines : null;
+        } catch (IOException e) {
+            process.destroy();
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+
+    private void addChangedFile(List<ChangedFile> changedFiles, String basePath, String path, PatchParser patch) {
+        if (path == null || patch == null) {
+            return;
+        }
+
+        final LinePositionIndex index = patch.build();
+
+        if (!index.isEmpty()) {
+            final ChangedFile changedFile = new ChangedFile();
+            changedFile.setPath(path);
+            changedFile.setBasePath(basePath);
+            changedFile.setLinePositionIndex(index);
+
+            changedFiles.add(changedFile);
+        }
+    }
+
+    private String parsePath(String value, String prefix) {
+        final String path = value.startsWith("\"") ? unquote(value) : value;
+        return path.startsWith(prefix) ? path.substring(prefix.length()) : null;
+    }
+
+    private String unquote(String value) {
+        final StringBuilder builder = new StringBuilder();
+
+        for (int i = 1; i < value.length() - 1; i++) {
+            final char c = value.charAt(i);
+
+            if (c != '\\' || i + 1 >= value.length() - 1) {
+                builder.append(c);
+                continue;
+            }
+
+            final char next = value.charAt(++i);
+
+            switch (next) {
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                default:
+                    builder.append(next);
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+class GitWorktrees implements AutoCloseable {
+    private static final Logger LOGGER = Logging.getLogger(GitWorktrees.class);
+    private static final String REMOTE = "origin";
+    private static final String REF_PREFIX = "refs/checkstyle-github/pull/";
+
+    private final File workingDir;
+    private final File tempDir;
+    private final Map<Integer, File> worktrees = new LinkedHashMap<>();
+    private final List<Integer> fetched = new ArrayList<>();
+
+    GitWorktrees(File workingDir, File tempDir) {
+        this.workingDir = workingDir;
+        this.tempDir = tempDir;
+    }
+
+    void fetch(Collection<Integer> pullRequests) {
+        final List<String> command = new ArrayList<>(Arrays.asList("fetch", "--quiet", "--no-tags", REMOTE));
+
+        for (Integer pullRequest : pullRequests) {
+            command.add(String.format("+refs/pull/%d/head:%s%d", pullRequest, REF_PREFIX, pullRequest));
+        }
+
+        // one fetch for all heads, so the remote is negotiated once
+        git(command);
+        fetched.addAll(pullRequests);
+    }
+
+    File add(int pullRequest) {
+        final File dir = new File(tempDir, "pull-" + pullRequest);
+
+        git(Arrays.asList("worktree", "add", "--quiet", "--force", "--detach", dir.getPath(), REF_PREFIX + pullRequest));
+        worktrees.put(pullRequest, dir);
+
+        return dir;
+    }
+
+    @Override
+    public void close() {
+        for (File dir : worktrees.values()) {
+            quietly(Arrays.asList("worktree", "remove", "--force", dir.getPath()));
+        }
+
+        for (Integer pullRequest : fetched) {
+            quietly(Arrays.asList("update-ref", "-d", REF_PREFIX + pullRequest));
+        }
+
+        quietly(Arrays.asList("worktree", "prune"));
+    }
+
+    private void quietly(List<String> args) {
+        try {
+            git(args);
+        } catch (GradleException e) {
+            LOGGER.warn(e.getMessage());
+        }
+    }
+
+    private void git(List<String> args) {
+        final List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(args);
+
+        try {
+            final Process process = new ProcessBuilder(command)
+                .directory(workingDir)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+            if (process.waitFor() != 0) {
+                throw new GradleException(String.format("git %s failed.", String.join(" ", args)));
+            }
+        } catch (IOException e) {
+            throw new GradleException("Cannot run git.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+}
@@ -20,73 +20,133 @@ package com.github.unchai.gradle.checkstyle;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
 import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHIssueState;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHPullRequestFileDetail;
+import org.kohsuke.github.GHPullRequestReviewBuilder;
 import org.kohsuke.github.GHPullRequestReviewComment;
+import org.kohsuke.github.GHPullRequestReviewEvent;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.extras.okhttp3.OkHttpConnector;
+
+import okhttp3.OkHttpClient;
 
 class GithubHelper {
     private static final String CONTEXT = "coding-convention/checkstyle";
     private static final String PREFIX = "#### :rotating_light: checkstyle defects";
 
+    private GitHub github;
     private GHRepository repo;
     private GHPullRequest pr;
     private String username;
 
     GithubHelper(GitHub github, String repository, int pullRequest) throws IOException {
-        this.username = github.getMyself().getLogin();
-        this.repo = github.getRepository(repository);
-        this.pr = this.repo.getPullRequest(pullRequest);
+        this.github = github;
+        this.username = call(() -> github.getMyself().getLogin());
+        this.repo = call(() -> github.getRepository(repository));
+        this.pr = call(() -> this.repo.getPullRequest(pullRequest));
     }
 
-    Map<Integer, Integer> parsePatch(String patch) {
-        int lineNo = 0;
-        int pathNo = 0;
+    static GithubHelper connect(
+        String endpoint,
+        String oauthToken,
+        String repository,
+        int pullRequest,
+        OkHttpClient httpClient) {
 
-        final Map<Integer, Integer> map = new HashMap<>();
-        for (String line : patch.split("\\r?\\n")) {
-            if (line.startsWith("@@")) {
-                final Matcher matcher = Pattern.compile("^@@ -(\\d+),?(\\d*) \\+(\\d+),?(\\d*) @@.*").matcher(line);
+        try {
+            return new GithubHelper(connect(endpoint, oauthToken, httpClient), repository, pullRequest);
+        } catch (IOException e) {
+            throw new GradleException("Cannot connect github.");
+        }
+    }
 
-                if (matcher.matches()) {
-                    lineNo = Integer.parseInt(matcher.group(3));
-                }
-            } else if (line.startsWith(" ")) {
-                lineNo++;
-            } else if (line.startsWith("+")) {
-                map.put(lineNo++, pathNo);
-            }
+    static GitHub connect(String endpoint, String oauthToken, OkHttpClient httpClient) {
+        try {
+            return new GitHubBuilder()
+                .withEndpoint(endpoint)
+                .withOAuthToken(oauthToken)
+                .withAbuseLimitHandler(PublishScheduler.ABUSE_LIMIT_HANDLER)
+                .withConnector(new OkHttpConnector(httpClient))
+                .build();
+        } catch (IOException e) {
+            throw new GradleException("Cannot connect github.");
+        }
+    }
 
-            pathNo++;
+    // null when the number is an issue rather than a pull request, or the pull request is closed
+    static GithubHelper openPullRequest(GitHub github, String repository, int pullRequest) {
+        try {
+            final GithubHelper githubHelper = new GithubHelper(github, repository, pullRequest);
+            return githubHelper.pr.getState() == GHIssueState.OPEN ? githubHelper : null;
+        } catch (GHFileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            throw new GradleException(e.getMessage(), e);
         }
+    }
 
-        return map;
+    String getBaseSha() {
+        return this.pr.getBase().getSha();
     }
 
-    List<ChangedFile> listChangedFile() {
-        final List<ChangedFile> linePositionMap = new ArrayList<>();
+    int getPullRequestNumber() {
+        return this.pr.getNumber();
+    }
 
-        for (GHPullRequestFileDetail fileDetail : this.pr.listFiles()) {
-            if (fileDetail.getPatch() == null) {
-                continue;
-            }
+    // the cache itself stays open in the build service for the next task
+    static void logHttpCache(GithubHttpService httpService, GithubHttpStats httpStats, Logger logger) {
+        if (httpService.isCacheEnabled()) {
+            logger.lifecycle("github http cache: {} hits, {} misses.", httpStats.getCacheHitCount(), httpStats.getCacheMissCount());
+        }
+    }
 
-            final Map<Integer, Integer> diffMap = parsePatch(fileDetail.getPatch());
+    static LinePositionIndex parsePatch(String patch) {
+        return PatchParser.parse(patch);
+    }
+
+    List<ChangedFile> listChangedFile(PathFilter pathFilter, TaskMetrics metrics) {
+        final ExecutorService parser = Executors.newSingleThreadExecutor();
+        final List<Future<ChangedFile>> parsed;
+
+        try {
+            parsed = call(() -> {
+                final List<Future<ChangedFile>> futures = new ArrayList<>();
+
+                // patches are parsed while the next page of files is still being fetched
+                for (GHPullRequestFileDetail fileDetail : this.pr.listFiles()) {
+                    if (fileDetail.getPatch() != null && pathFilter.accepts(fileDetail.getFilename())) {
+                        futures.add(parser.submit(() -> parseFile(fileDetail, metrics)));
+                    }
+                }
 
-            if (!diffMap.isEmpty()) {
-                final ChangedFile changedFile = new ChangedFile();
-                changedFile.setPath(fileDetail.getFilename());
-                changedFile.setLinePositionMap(diffMap);
+                return futures;
+            });
+        } catch (IOException e) {
+            throw new GradleException(e.getMessage(), e);
+        } finally {
+            parser.shutdown();
+        }
 
+        final List<ChangedFile> linePositionMap = new ArrayList<>();
+
+        for (Future<ChangedFile> future : parsed) {
+            final ChangedFile changedFile = Background.await(future);
+
+            if (changedFile != null) {
                 linePositionMap.add(changedFile);
             }
         }
@@ -94,46 +154,157 @@ class GithubHelper {
         return linePositionMap;
     }
 
+    private static ChangedFile parseFile(GHPullRequestFileDetail fileDetail, TaskMetrics metrics) {
+        final LinePositionIndex index = metrics.time(TaskMetrics.PARSE, () -> parsePatch(fileDetail.getPatch()));
+
+        if (index.isEmpty()) {
+            return null;
+        }
+
+        final ChangedFile changedFile = new ChangedFile();
+        changedFile.setPath(fileDetail.getFilename());
+        changedFile.setLinePositionIndex(index);
+
+        if (fileDetail.getPreviousFilename() != null) {
+            changedFile.setBasePath(fileDetail.getPreviousFilename());
+        } else if (!"added".equals(fileDetail.getStatus())) {
+            changedFile.setBasePath(fileDetail.getFilename());
+        }
+
+        return changedFile;
+    }
+
     void changeStatus(GHCommitState state, String description) {
         try {
-            this.repo.createCommitStatus(
+            call(() -> this.repo.createCommitStatus(
                 this.pr.getHead().getSha(),
                 state,
                 null,
                 description,
                 CONTEXT
-            );
+            ));
         } catch (IOException e) {
             throw new GradleException(e.getMessage(), e);
         }
     }
 
-    void removeAllComment() {
-        try {
-            for (GHPullRequestReviewComment comment : this.pr.listReviewComments()) {
-                if (comment.getUser().getLogin().equals(this.username)
-                    && comment.getBody().startsWith(PREFIX)) {
-                    comment.delete();
-                }
+    int publishCheckRun(
+        String oauthToken,
+        ViolationStore errors,
+        Map<Severity, Integer> severityLevelCountMap,
+        int concurrency) {
+
+        final CheckRunPublisher publisher =
+            new CheckRunPublisher(this.github, oauthToken, this.repo.getFullName(), this.pr.getHead().getSha());
+
+        return publisher.publish(errors, severityLevelCountMap, new PublishScheduler(this.github::lastRateLimit, concurrency));
+    }
+
+    Future<List<GHPullRequestReviewComment>> listMyCommentsAsync(TaskMetrics metrics) {
+        return Background.start(() -> metrics.time(TaskMetrics.LIST_COMMENTS, this::listMyComments));
+    }
+
+    CommentReconciler.Reconciliation reconcileComments(
+        Future<List<GHPullRequestReviewComment>> myComments,
+        Collection<Comment> comments,
+        int batchSize,
+        int concurrency,
+        TaskMetrics metrics) {
+
+        final CommentReconciler.Reconciliation reconciliation =
+            new CommentReconciler(this::buildCommentBody).reconcile(Background.await(myComments), comments);
+
+        final List<PublishScheduler.Request> deletes = new ArrayList<>();
+
+        for (GHPullRequestReviewComment comment : reconciliation.getStaleComments()) {
+            deletes.add(comment::delete);
+        }
+
+        // stale comments are deleted while the new ones are posted, sharing the concurrency between both
+        final int deleteConcurrency = deletes.isEmpty() ? 0 : Math.max(1, concurrency / 2);
+        final Future<?> deleting = Background.start(() -> metrics.time(
+            TaskMetrics.DELETE_COMMENTS,
+            () -> new PublishScheduler(this.github::lastRateLimit, Math.max(1, deleteConcurrency)).run(deletes)
+        ));
+
+        final PublishScheduler scheduler =
+            new PublishScheduler(this.github::lastRateLimit, Math.max(1, concurrency - deleteConcurrency));
+
+        final String sha = this.pr.getHead().getSha();
+        final List<PublishScheduler.Request> creates;
+
+        if (batchSize > 0) {
+            creates = createReviews(reconciliation.getNewComments(), batchSize, sha);
+        } else {
+            creates = new ArrayList<>();
+
+            for (Comment comment : reconciliation.getNewComments()) {
+                creates.add(() -> createComment(comment, sha));
             }
-        } catch (IOException e) {
-            throw new GradleException(e.getMessage(), e);
         }
+
+        metrics.time(TaskMetrics.POST_COMMENTS, () -> scheduler.run(creates));
+        Background.await(deleting);
+
+        return reconciliation;
     }
 
-    void createComment(Comment comment) {
+    private List<GHPullRequestReviewComment> listMyComments() {
         try {
-            this.pr.createReviewComment(
-                buildCommentBody(comment),
-                this.pr.getHead().getSha(),
-                comment.getPath(),
-                comment.getPosition()
-            );
+            return call(() -> {
+                final List<GHPullRequestReviewComment> comments = new ArrayList<>();
+
+                for (GHPullRequestReviewComment comment : this.pr.listReviewComments()) {
+                    if (comment.getUser().getLogin().equals(this.username)
+                        && comment.getBody().startsWith(PREFIX)) {
+                        comments.add(comment);
+                    }
+                }
+
+                return comments;
+            });
         } catch (IOException e) {
             throw new GradleException(e.getMessage(), e);
         }
     }
 
+    // reads and statuses are sent one at a time, but wait out rate limits like the comments do
+    private <T> T call(PublishScheduler.Call<T> call) throws IOException {
+        return new PublishScheduler(this.github::lastRateLimit, 1).call(call);
+    }
+
+    private void createComment(Comment comment, String sha) throws IOException {
+        this.pr.createReviewComment(
+            buildCommentBody(comment),
+            sha,
+            comment.getPath(),
+            comment.getPosition()
+        );
+    }
+
+    private List<PublishScheduler.Request> createReviews(List<Comment> comments, int batchSize, String sha) {
+        final List<PublishScheduler.Request> requests = new ArrayList<>();
+
+        for (int from = 0; from < comments.size(); from += batchSize) {
+            final List<Comment> chunk = comments.subList(from, Math.min(from + batchSize, comments.size()));
+
+            requests.add(() -> {
+                // no body: review bodies cannot be deleted, so they would pile up in the conversation on every push
+                final GHPullRequestReviewBuilder builder = this.pr.createReview()
+                    .commitId(sha)
+                    .event(GHPullRequestReviewEvent.COMMENT);
+
+                for (Comment comment : chunk) {
+                    builder.comment(buildCommentBody(comment), comment.getPath(), comment.getPosition());
+                }
+
+                builder.create();
+            });
+        }
+
+        return requests;
+    }
+
     private String buildCommentBody(Comment comment) {
         final StringBuilder builder = new StringBuilder();
         builder.append(String.format("%s%n", PREFIX));
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+// one client for every task of the build, so connections and TLS sessions outlive a single task
+public abstract class GithubHttpService implements BuildService<GithubHttpService.Parameters>, AutoCloseable {
+    private final OkHttpClient client;
+
+    public interface Parameters extends BuildServiceParameters {
+        Property<Integer> getPoolSize();
+
+        Property<Long> getKeepAliveSeconds();
+
+        Property<Long> getConnectTimeoutSeconds();
+
+        Property<Long> getReadTimeoutSeconds();
+
+        Property<Boolean> getCacheEnabled();
+
+        DirectoryProperty getCacheDir();
+
+        Property<Long> getCacheMaxSize();
+    }
+
+    public GithubHttpService() {
+        final Parameters parameters = getParameters();
+
+        this.client = buildClient(
+            parameters.getPoolSize().get(),
+            parameters.getKeepAliveSeconds().get(),
+            parameters.getConnectTimeoutSeconds().get(),
+            parameters.getReadTimeoutSeconds().get(),
+            parameters.getCacheEnabled().get()
+                ? new Cache(parameters.getCacheDir().get().getAsFile(), parameters.getCacheMaxSize().get())
+                : null
+        );
+    }
+
+    static OkHttpClient buildClient(
+        int poolSize,
+        long keepAliveSeconds,
+        long connectTimeoutSeconds,
+        long readTimeoutSeconds,
+        Cache cache) {
+
+        // h2 is negotiated with ALPN where the endpoint supports it, plain http enterprise endpoints stay on http/1.1
+        return new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(poolSize, keepAliveSeconds, TimeUnit.SECONDS))
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+            .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+            .writeTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+            .cache(cache)
+            .build();
+    }
+
+    // shares the pool, dispatcher and cache, only the listener is per task
+    OkHttpClient newClient(GithubHttpStats httpStats) {
+        return client.newBuilder().eventListener(httpStats).build();
+    }
+
+    boolean isCacheEnabled() {
+        return client.cache() != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+
+        if (client.cache() != null) {
+            client.cache().close();
+        }
+    }
+}
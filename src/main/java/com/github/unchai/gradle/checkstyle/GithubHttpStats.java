@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Response;
+
+class GithubHttpStats extends EventListener {
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        bytesSent.addAndGet(byteCount);
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        callCount.incrementAndGet();
+
+        if (!"GET".equals(response.request().method())) {
+            return;
+        }
+
+        if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            cacheHitCount.incrementAndGet();
+        } else {
+            cacheMissCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        bytesReceived.addAndGet(byteCount);
+    }
+
+    long getCallCount() {
+        return callCount.get();
+    }
+
+    long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    long getCacheMissCount() {
+        return cacheMissCount.get();
+    }
+
+    long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    long getBytesReceived() {
+        return bytesReceived.get();
+    }
+}
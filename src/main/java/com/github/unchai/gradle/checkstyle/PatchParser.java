@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+class PatchParser {
+    private static final String HUNK_HEADER = "@@ -";
+
+    private final RangeLinePositionIndex.Builder builder = new RangeLinePositionIndex.Builder();
+    private int lineNo;
+    private int pathNo;
+
+    static LinePositionIndex parse(String patch) {
+        final PatchParser parser = new PatchParser();
+        final int length = patch.length();
+
+        int start = 0;
+        while (start < length) {
+            int end = patch.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+
+            parser.line(patch, start, end > start && patch.charAt(end - 1) == '\r' ? end - 1 : end);
+            start = end + 1;
+        }
+
+        return parser.build();
+    }
+
+    void line(CharSequence text) {
+        line(text, 0, text.length());
+    }
+
+    void line(CharSequence text, int start, int end) {
+        final char first = start < end ? text.charAt(start) : 0;
+
+        if (first == '@' && startsWith(text, start, end, HUNK_HEADER)) {
+            final int newStart = parseNewStart(text, start + HUNK_HEADER.length(), end);
+
+            if (newStart >= 0) {
+                lineNo = newStart;
+            }
+        } else if (first == ' ') {
+            lineNo++;
+        } else if (first == '+') {
+            builder.add(lineNo++, pathNo);
+        }
+
+        pathNo++;
+    }
+
+    LinePositionIndex build() {
+        return builder.build();
+    }
+
+    private static boolean startsWith(CharSequence text, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // "@@ -l[,s] +l[,s] @@": returns the start line of the new file or -1 when the header is malformed
+    private static int parseNewStart(CharSequence text, int start, int end) {
+        int i = skipRange(text, start, end);
+
+        if (i < 0 || i + 1 >= end || text.charAt(i) != ' ' || text.charAt(i + 1) != '+') {
+            return -1;
+        }
+
+        i += 2;
+
+        int value = 0;
+        int digits = 0;
+
+        while (i < end && Character.isDigit(text.charAt(i))) {
+            value = value * 10 + (text.charAt(i++) - '0');
+            digits++;
+        }
+
+        if (digits == 0) {
+            return -1;
+        }
+
+        i = skipCount(text, i, end);
+
+        return startsWith(text, i, end, " @@") ? value : -1;
+    }
+
+    private static int skipRange(CharSequence text, int start, int end) {
+        int i = start;
+
+        while (i < end && Character.isDigit(text.charAt(i))) {
+            i++;
+        }
+
+        return i == start ? -1 : skipCount(text, i, end);
+    }
+
+    private static int skipCount(CharSequence text, int start, int end) {
+        int i = start;
+
+        if (i < end && text.charAt(i) == ',') {
+            i++;
+
+            while (i < end && Character.isDigit(text.charAt(i))) {
+                i++;
+            }
+        }
+
+        return i;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+class PathFilter {
+    static final PathFilter ALL = compile(null, null);
+
+    private final GlobSet includes;
+    private final GlobSet excludes;
+
+    private PathFilter(GlobSet includes, GlobSet excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    static PathFilter compile(Collection<String> includes, Collection<String> excludes) {
+        return new PathFilter(new GlobSet(includes), new GlobSet(excludes));
+    }
+
+    boolean accepts(String path) {
+        return (includes.isEmpty() || includes.matches(path)) && !excludes.matches(path);
+    }
+
+    // "dir/**" patterns go into a trie of path segments, "**/*.ext" patterns into an extension set and literal paths
+    // into a hash set; only the remaining patterns are combined into a single regular expression
+    private static class GlobSet {
+        private final Node subtrees = new Node();
+        private final Set<String> suffixes = new HashSet<>();
+        private final Set<String> paths = new HashSet<>();
+        private final Pattern others;
+        private final boolean empty;
+
+        GlobSet(Collection<String> patterns) {
+            final List<String> regexes = new ArrayList<>();
+
+            if (patterns != null) {
+                for (String pattern : patterns) {
+                    add(normalize(pattern), regexes);
+                }
+            }
+
+            this.others = regexes.isEmpty() ? null : Pattern.compile(String.join("|", regexes));
+            this.empty = patterns == null || patterns.isEmpty();
+        }
+
+        private void add(String pattern, List<String> regexes) {
+            if (pattern.equals("**")) {
+                subtrees.all = true;
+            } else if (pattern.endsWith("/**") && isLiteral(pattern.substring(0, pattern.length() - 3))) {
+                Node node = subtrees;
+
+                for (String segment : StringUtils.split(pattern.substring(0, pattern.length() - 3), '/')) {
+                    node = node.children.computeIfAbsent(segment, key -> new Node());
+                }
+
+                node.all = true;
+            } else if (pattern.startsWith("**/*.") && isLiteral(pattern.substring(4)) && pattern.indexOf('/', 3) < 0) {
+                suffixes.add(pattern.substring(4));
+            } else if (isLiteral(pattern)) {
+                paths.add(pattern);
+            } else {
+                regexes.add("(?:" + toRegex(pattern) + ")");
+            }
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        boolean matches(String path) {
+            if (paths.contains(path) || matchesSubtree(path) || matchesSuffix(path)) {
+                return true;
+            }
+
+            return others != null && others.matcher(path).matches();
+        }
+
+        private boolean matchesSubtree(String path) {
+            Node node = subtrees;
+            int from = 0;
+
+            while (!node.all) {
+                final int to = path.indexOf('/', from);
+
+                if (to < 0 || (node = node.children.get(path.substring(from, to))) == null) {
+                    return false;
+                }
+
+                from = to + 1;
+            }
+
+            return true;
+        }
+
+        private boolean matchesSuffix(String path) {
+            if (suffixes.isEmpty()) {
+                return false;
+            }
+
+            final String name = path.substring(path.lastIndexOf('/') + 1);
+
+            for (int i = name.indexOf('.'); i >= 0; i = name.indexOf('.', i + 1)) {
+                if (suffixes.contains(name.substring(i))) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean all;
+    }
+
+    private static String normalize(String pattern) {
+        final String normalized = pattern.trim().replace('\\', '/');
+
+        if (normalized.startsWith("./")) {
+            return normalized.substring(2);
+        }
+
+        return StringUtils.removeStart(normalized, "/");
+    }
+
+    private static boolean isLiteral(String pattern) {
+        return StringUtils.containsNone(pattern, '*', '?');
+    }
+
+    static String toRegex(String glob) {
+        final StringBuilder regex = new StringBuilder();
+
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+
+            if (glob.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 2;
+            } else if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return regex.toString();
+    }
+}
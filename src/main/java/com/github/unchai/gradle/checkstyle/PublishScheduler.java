@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.kohsuke.github.AbuseLimitHandler;
+import org.kohsuke.github.GHException;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHIOException;
+import org.kohsuke.github.GHRateLimit;
+import org.kohsuke.github.HttpException;
+
+class PublishScheduler {
+    static final AbuseLimitHandler ABUSE_LIMIT_HANDLER = new AbuseLimitHandler() {
+        @Override
+        public void onError(IOException e, HttpURLConnection uc) throws IOException {
+            throw new SecondaryLimitException(
+                TimeUnit.SECONDS.toMillis(NumberUtils.toLong(uc.getHeaderField("Retry-After"))),
+                e
+            );
+        }
+    };
+
+    private static final Logger LOGGER = Logging.getLogger(PublishScheduler.class);
+    private static final int MAX_RETRIES = 5;
+    private static final long BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final int HTTP_FORBIDDEN = 403;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    interface Request {
+        void send() throws IOException;
+    }
+
+    interface Call<T> {
+        T call() throws IOException;
+    }
+
+    private final Supplier<GHRateLimit> rateLimit;
+    private final int concurrency;
+    private final int maxRetries;
+    private final long backoffMillis;
+    private volatile GHRateLimit.Record observed;
+
+    PublishScheduler(Supplier<GHRateLimit> rateLimit, int concurrency) {
+        this(rateLimit, concurrency, MAX_RETRIES, BACKOFF_MILLIS);
+    }
+
+    PublishScheduler(Supplier<GHRateLimit> rateLimit, int concurrency, int maxRetries, long backoffMillis) {
+        this.rateLimit = rateLimit;
+        this.concurrency = concurrency;
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+    }
+
+    void run(List<Request> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, requests.size()));
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+
+            for (Request request : requests) {
+                futures.add(executor.submit(() -> send(() -> {
+                    request.send();
+                    return null;
+                })));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new GradleException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException(e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // requests sent around the github client report the rate limit of their responses here, the client never sees them
+    void observeRateLimit(GHRateLimit.Record record) {
+        this.observed = record;
+    }
+
+    // one call on the caller's thread, paced and retried like the requests of run()
+    <T> T call(Call<T> call) throws IOException {
+        try {
+            return send(call);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    // listings fail in the middle of their pages with an unchecked GHException, they are started over
+    private <T> T send(Call<T> call) throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            pace();
+
+            try {
+                return call.call();
+            } catch (IOException | GHException e) {
+                final IOException cause = rateLimited(e);
+
+                if (attempt >= maxRetries || cause == null) {
+                    throw e;
+                }
+
+                final long delay = Math.max(retryAfter(cause), backoffMillis << attempt);
+                final long jitter = ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+
+                LOGGER.info("github rate limited, retrying in {} ms.", delay + jitter);
+                Thread.sleep(delay + jitter);
+            }
+        }
+    }
+
+    private void pace() throws InterruptedException {
+        final GHRateLimit limit = rateLimit.get();
+        final GHRateLimit.Record core = observed != null ? observed : limit != null ? limit.getCore() : null;
+
+        if (core == null) {
+            return;
+        }
+
+        final long untilReset = TimeUnit.SECONDS.toMillis(core.getResetEpochSeconds()) - System.currentTimeMillis();
+
+        if (untilReset <= 0 || core.getRemaining() > core.getLimit() / 10) {
+            return;
+        }
+
+        if (core.getRemaining() <= concurrency) {
+            LOGGER.lifecycle("github rate limit almost exhausted, waiting {} s for the reset.", TimeUnit.MILLISECONDS.toSeconds(untilReset));
+            Thread.sleep(untilReset + ThreadLocalRandom.current().nextLong(backoffMillis + 1));
+        } else {
+            Thread.sleep(untilReset * concurrency / core.getRemaining());
+        }
+    }
+
+    private static IOException rateLimited(Exception e) {
+        final Throwable cause = e instanceof GHException ? e.getCause() : e;
+
+        return cause instanceof IOException && isRateLimited((IOException)cause) ? (IOException)cause : null;
+    }
+
+    private static boolean isRateLimited(IOException e) {
+        if (e instanceof SecondaryLimitException) {
+            return true;
+        }
+
+        if (e instanceof HttpException) {
+            return isSecondaryLimit(((HttpException)e).getResponseCode(), ((HttpException)e).getResponseHeaderFields());
+        }
+
+        // github-api reports every 4xx response as not found, only the status line in the headers tells them apart
+        return e instanceof GHFileNotFoundException && isSecondaryLimit(((GHFileNotFoundException)e).getResponseHeaderFields());
+    }
+
+    private static boolean isSecondaryLimit(Map<String, List<String>> headers) {
+        if (headers == null || headers.get(null) == null) {
+            return false;
+        }
+
+        return headers.get(null).stream().anyMatch(
+            statusLine -> isSecondaryLimit(NumberUtils.toInt(StringUtils.substringBetween(statusLine + " ", " ", " ")), headers)
+        );
+    }
+
+    // github-api only hands a 403 to the abuse limit handler when its Retry-After header is spelled that way, which
+    // http/2 responses with their lower case header names never do
+    private static boolean isSecondaryLimit(int responseCode, Map<String, List<String>> headers) {
+        return responseCode == HTTP_TOO_MANY_REQUESTS || responseCode == HTTP_FORBIDDEN && header(headers, "Retry-After") != null;
+    }
+
+    private static String header(Map<String, List<String>> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+
+        return null;
+    }
+
+    private static long retryAfter(IOException e) {
+        if (e instanceof SecondaryLimitException) {
+            return ((SecondaryLimitException)e).getRetryAfterMillis();
+        }
+
+        final Map<String, List<String>> headers = e instanceof GHIOException
+            ? ((GHIOException)e).getResponseHeaderFields()
+            : e instanceof GHFileNotFoundException ? ((GHFileNotFoundException)e).getResponseHeaderFields() : null;
+
+        return TimeUnit.SECONDS.toMillis(NumberUtils.toLong(header(headers, "Retry-After")));
+    }
+
+    static class SecondaryLimitException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterMillis;
+
+        SecondaryLimitException(long retryAfterMillis, Throwable cause) {
+            super("Secondary rate limit reached", cause);
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+}
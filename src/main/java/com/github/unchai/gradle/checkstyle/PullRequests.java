@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.gradle.api.GradleException;
+
+final class PullRequests {
+    private PullRequests() {
+    }
+
+    // "12", "12,15" and "20-25" or any mix of them
+    static List<Integer> parse(String value) {
+        final Set<Integer> pullRequests = new LinkedHashSet<>();
+
+        for (String part : StringUtils.split(StringUtils.defaultString(value), ',')) {
+            final String[] range = StringUtils.split(part.trim(), '-');
+
+            if (range.length == 0 || range.length > 2
+                || !StringUtils.isNumeric(range[0].trim()) || !StringUtils.isNumeric(range[range.length - 1].trim())) {
+                throw new GradleException(String.format("Invalid pull request '%s'!", part.trim()));
+            }
+
+            final int from = NumberUtils.toInt(range[0].trim());
+            final int to = NumberUtils.toInt(range[range.length - 1].trim());
+
+            if (from > to) {
+                throw new GradleException(String.format("Invalid pull request range '%s'!", part.trim()));
+            }
+
+            for (int pullRequest = from; pullRequest <= to; pullRequest++) {
+                pullRequests.add(pullRequest);
+            }
+        }
+
+        return new ArrayList<>(pullRequests);
+    }
+}
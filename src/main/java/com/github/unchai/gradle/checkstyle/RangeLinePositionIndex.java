@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.util.Arrays;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.EqualsAndHashCode;
+
+@EqualsAndHashCode
+@JsonAutoDetect(
+    fieldVisibility = JsonAutoDetect.Visibility.ANY,
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE
+)
+public class RangeLinePositionIndex implements LinePositionIndex {
+    private final int[] lines;
+    private final int[] positions;
+    private final int[] lengths;
+
+    @JsonCreator
+    RangeLinePositionIndex(
+        @JsonProperty("lines") int[] lines,
+        @JsonProperty("positions") int[] positions,
+        @JsonProperty("lengths") int[] lengths) {
+
+        this.lines = lines;
+        this.positions = positions;
+        this.lengths = lengths;
+    }
+
+    @Override
+    public boolean contains(int line) {
+        return getPosition(line) != NO_POSITION;
+    }
+
+    @Override
+    public int getPosition(int line) {
+        final int index = Arrays.binarySearch(lines, line);
+        final int range = index >= 0 ? index : -index - 2;
+
+        if (range < 0 || line - lines[range] >= lengths[range]) {
+            return NO_POSITION;
+        }
+
+        return positions[range] + line - lines[range];
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+
+        for (int length : lengths) {
+            size += length;
+        }
+
+        return size;
+    }
+
+    static class Builder {
+        private int[] lines = new int[8];
+        private int[] positions = new int[8];
+        private int[] lengths = new int[8];
+        private int count;
+
+        void add(int line, int position) {
+            if (count > 0
+                && lines[count - 1] + lengths[count - 1] == line
+                && positions[count - 1] + lengths[count - 1] == position) {
+                lengths[count - 1]++;
+                return;
+            }
+
+            if (count == lines.length) {
+                lines = Arrays.copyOf(lines, count * 2);
+                positions = Arrays.copyOf(positions, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+
+            lines[count] = line;
+            positions[count] = position;
+            lengths[count] = 1;
+            count++;
+        }
+
+        RangeLinePositionIndex build() {
+            return new RangeLinePositionIndex(
+                Arrays.copyOf(lines, count),
+                Arrays.copyOf(positions, count),
+                Arrays.copyOf(lengths, count)
+            );
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.gradle.api.GradleException;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+final class ReportFiles {
+    static final String CHANGED_FILES = "checkstyle-github/changed-files.json";
+    static final String RESULTS = "checkstyle-github/results.json";
+    static final String ROUTED_CHANGED_FILES = "checkstyle-github/changed-files";
+    static final String METRICS = "checkstyle-github/metrics";
+    static final String SARIF = "checkstyle-github/checkstyle.sarif";
+    static final String CHECKSTYLE_XML = "checkstyle-github/checkstyle.xml";
+    static final String PULL_REQUESTS = "checkstyle-github/pulls";
+    static final String PULL_REQUEST_CHANGED_FILES = "changed-files.json";
+    static final String PULL_REQUEST_RESULTS = "results.json";
+    static final String PULL_REQUEST_METRICS = "metrics.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ReportFiles() {
+    }
+
+    static List<ChangedFile> readChangedFiles(File file) {
+        return read(file, new TypeReference<List<ChangedFile>>() { });
+    }
+
+    static void writeChangedFiles(File file, List<ChangedFile> changedFiles) {
+        write(file, changedFiles);
+    }
+
+    static void forEachError(File file, Consumer<CheckstyleError> action) {
+        try (MappingIterator<CheckstyleError> errors = MAPPER.readerFor(CheckstyleError.class).readValues(file)) {
+            while (errors.hasNext()) {
+                action.accept(errors.next());
+            }
+        } catch (IOException e) {
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+
+    static void writeErrors(File file, List<CheckstyleError> errors) {
+        write(file, errors);
+    }
+
+    static File pullRequestDir(File buildDir, int pullRequest) {
+        return new File(new File(buildDir, PULL_REQUESTS), String.valueOf(pullRequest));
+    }
+
+    static File routedChangedFilesDir(File buildDir) {
+        return new File(buildDir, ROUTED_CHANGED_FILES);
+    }
+
+    static File routedChangedFilesFile(File buildDir, String routeName) {
+        return new File(routedChangedFilesDir(buildDir), routeName + ".json");
+    }
+
+    static File metricsFile(File buildDir, String taskName) {
+        return new File(new File(buildDir, METRICS), taskName + ".json");
+    }
+
+    static void writeMetrics(File file, TaskMetrics metrics) {
+        write(file, metrics);
+    }
+
+    private static <T> T read(File file, TypeReference<T> type) {
+        try {
+            return MAPPER.readValue(file, type);
+        } catch (IOException e) {
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+
+    private static void write(File file, Object value) {
+        try {
+            file.getParentFile().mkdirs();
+            MAPPER.writeValue(file, value);
+        } catch (IOException e) {
+            throw new GradleException(e.getMessage(), e);
+        }
+    }
+}
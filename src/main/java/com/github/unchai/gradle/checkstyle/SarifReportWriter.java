@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+class SarifReportWriter implements ReportWriter {
+    private static final String SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+    private static final String VERSION = "2.1.0";
+
+    private final JsonGenerator generator;
+
+    SarifReportWriter(File file, String toolVersion) throws IOException {
+        file.getParentFile().mkdirs();
+
+        this.generator = new JsonFactory().createGenerator(file, JsonEncoding.UTF8);
+        this.generator.writeStartObject();
+        this.generator.writeStringField("$schema", SCHEMA);
+        this.generator.writeStringField("version", VERSION);
+        this.generator.writeArrayFieldStart("runs");
+        this.generator.writeStartObject();
+        this.generator.writeObjectFieldStart("tool");
+        this.generator.writeObjectFieldStart("driver");
+        this.generator.writeStringField("name", "Checkstyle");
+        this.generator.writeStringField("version", toolVersion);
+        this.generator.writeStringField("informationUri", "https://checkstyle.org");
+        this.generator.writeEndObject();
+        this.generator.writeEndObject();
+        this.generator.writeArrayFieldStart("results");
+    }
+
+    @Override
+    public void write(CheckstyleError error) throws IOException {
+        generator.writeStartObject();
+
+        if (error.getSource() != null) {
+            generator.writeStringField("ruleId", error.getSource());
+        }
+
+        generator.writeStringField("level", level(error.getSeverityLevel()));
+        generator.writeObjectFieldStart("message");
+        generator.writeStringField("text", error.getMessage());
+        generator.writeEndObject();
+        generator.writeArrayFieldStart("locations");
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("physicalLocation");
+        generator.writeObjectFieldStart("artifactLocation");
+        generator.writeStringField("uri", error.getPath());
+        generator.writeStringField("uriBaseId", "%SRCROOT%");
+        generator.writeEndObject();
+        generator.writeObjectFieldStart("region");
+        generator.writeNumberField("startLine", error.getLine());
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private static String level(Severity severity) {
+        switch (severity) {
+            case ERROR:
+                return "error";
+            case WARNING:
+                return "warning";
+            case INFO:
+                return "note";
+            default:
+                return "none";
+        }
+    }
+}
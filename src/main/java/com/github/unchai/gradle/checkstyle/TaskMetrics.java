@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.gradle.api.logging.Logger;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+@JsonAutoDetect(
+    fieldVisibility = JsonAutoDetect.Visibility.ANY,
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE
+)
+class TaskMetrics {
+    static final String CONNECT = "connect";
+    static final String LIST_FILES = "listFiles";
+    static final String FETCH_HEADS = "fetchHeads";
+    static final String RESOLVE_BASE = "resolveBase";
+    static final String PARSE = "parse";
+    static final String CHECK = "check";
+    static final String READ_RESULTS = "readResults";
+    static final String LIST_COMMENTS = "listComments";
+    static final String DELETE_COMMENTS = "deleteComments";
+    static final String POST_COMMENTS = "postComments";
+    static final String STATUS = "status";
+    static final String WRITE_REPORTS = "writeReports";
+    // wall time of the batch steps that handle pull requests concurrently
+    static final String PREPARE = "prepare";
+    static final String PUBLISH = "publish";
+
+    private final String task;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private int files;
+    private int violations;
+    private double filesPerSecond;
+    private double violationsPerSecond;
+    private long apiCalls;
+    private long apiCacheHits;
+    private long bytesSent;
+    private long bytesReceived;
+
+    @JsonIgnore
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+
+    TaskMetrics(String task) {
+        this.task = task;
+    }
+
+    <T> T time(String phase, Supplier<T> action) {
+        final long start = System.nanoTime();
+
+        try {
+            return action.get();
+        } finally {
+            add(phase, System.nanoTime() - start);
+        }
+    }
+
+    void time(String phase, Runnable action) {
+        time(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    synchronized void add(String phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    void setFiles(int files) {
+        this.files = files;
+    }
+
+    void setViolations(int violations) {
+        this.violations = violations;
+    }
+
+    synchronized int getFiles() {
+        return files;
+    }
+
+    synchronized int getViolations() {
+        return violations;
+    }
+
+    synchronized void addFiles(int files) {
+        this.files += files;
+    }
+
+    synchronized void addViolations(int violations) {
+        this.violations += violations;
+    }
+
+    void setHttpStats(GithubHttpStats stats) {
+        this.apiCalls = stats.getCallCount();
+        this.apiCacheHits = stats.getCacheHitCount();
+        this.bytesSent = stats.getBytesSent();
+        this.bytesReceived = stats.getBytesReceived();
+    }
+
+    synchronized void write(File file, Logger logger) {
+        write(file);
+
+        final StringBuilder summary = new StringBuilder(task).append(" metrics:");
+
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            summary.append(String.format(" %s %d ms,", entry.getKey(), entry.getValue()));
+        }
+
+        summary.append(String.format(
+            " %d files (%.1f/s), %d violations (%.1f/s), %d api calls (%d not modified), %d bytes sent, %d bytes received.",
+            files,
+            filesPerSecond,
+            violations,
+            violationsPerSecond,
+            apiCalls,
+            apiCacheHits,
+            bytesSent,
+            bytesReceived
+        ));
+
+        logger.lifecycle(summary.toString());
+    }
+
+    // without the summary line, e.g. for each pull request of a batch
+    synchronized void write(File file) {
+        for (Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+            phases.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+        }
+
+        final long nanos = phaseNanos.containsKey(CHECK)
+            ? phaseNanos.get(CHECK)
+            : phaseNanos.values().stream().mapToLong(Long::longValue).sum();
+
+        if (nanos > 0) {
+            final double seconds = nanos / (double)TimeUnit.SECONDS.toNanos(1);
+            filesPerSecond = files / seconds;
+            violationsPerSecond = violations / seconds;
+        }
+
+        ReportFiles.writeMetrics(file, this);
+    }
+}
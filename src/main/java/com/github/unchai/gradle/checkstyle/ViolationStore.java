@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// paths, messages and sources are interned, everything else lives in primitive chunks that are never copied on growth
+class ViolationStore {
+    private static final int CHUNK_SIZE = 4096;
+    private static final Severity[] SEVERITIES = Severity.values();
+
+    private final StringTable paths = new StringTable();
+    private final StringTable messages = new StringTable();
+    private final StringTable sources = new StringTable();
+
+    private final List<int[]> pathIds = new ArrayList<>();
+    private final List<int[]> lines = new ArrayList<>();
+    private final List<int[]> messageIds = new ArrayList<>();
+    private final List<int[]> sourceIds = new ArrayList<>();
+    private final List<byte[]> severities = new ArrayList<>();
+
+    private int size;
+
+    void add(CheckstyleError error) {
+        add(error.getSeverityLevel(), error.getPath(), error.getLine(), error.getMessage(), error.getSource());
+    }
+
+    void add(Severity severity, String path, int line, String message, String source) {
+        final int chunk = size / CHUNK_SIZE;
+        final int offset = size % CHUNK_SIZE;
+
+        if (offset == 0) {
+            pathIds.add(new int[CHUNK_SIZE]);
+            lines.add(new int[CHUNK_SIZE]);
+            messageIds.add(new int[CHUNK_SIZE]);
+            sourceIds.add(new int[CHUNK_SIZE]);
+            severities.add(new byte[CHUNK_SIZE]);
+        }
+
+        pathIds.get(chunk)[offset] = paths.intern(path);
+        lines.get(chunk)[offset] = line;
+        messageIds.get(chunk)[offset] = messages.intern(message);
+        sourceIds.get(chunk)[offset] = sources.intern(source);
+        severities.get(chunk)[offset] = (byte)severity.ordinal();
+
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int pathCount() {
+        return paths.size();
+    }
+
+    int getPathId(int index) {
+        return pathIds.get(index / CHUNK_SIZE)[index % CHUNK_SIZE];
+    }
+
+    String getPath(int index) {
+        return paths.get(getPathId(index));
+    }
+
+    int getLine(int index) {
+        return lines.get(index / CHUNK_SIZE)[index % CHUNK_SIZE];
+    }
+
+    String getMessage(int index) {
+        return messages.get(messageIds.get(index / CHUNK_SIZE)[index % CHUNK_SIZE]);
+    }
+
+    String getSource(int index) {
+        return sources.get(sourceIds.get(index / CHUNK_SIZE)[index % CHUNK_SIZE]);
+    }
+
+    Severity getSeverity(int index) {
+        return SEVERITIES[severities.get(index / CHUNK_SIZE)[index % CHUNK_SIZE]];
+    }
+
+    CheckstyleError get(int index) {
+        final CheckstyleError error = new CheckstyleError();
+        error.setSeverityLevel(getSeverity(index));
+        error.setPath(getPath(index));
+        error.setLine(getLine(index));
+        error.setMessage(getMessage(index));
+        error.setSource(getSource(index));
+
+        return error;
+    }
+
+    int[] countBySeverity() {
+        final int[] counts = new int[SEVERITIES.length];
+
+        for (int chunk = 0; chunk < severities.size(); chunk++) {
+            final byte[] values = severities.get(chunk);
+            final int length = Math.min(CHUNK_SIZE, size - chunk * CHUNK_SIZE);
+
+            for (int i = 0; i < length; i++) {
+                counts[values[i]]++;
+            }
+        }
+
+        return counts;
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int intern(String value) {
+            final Integer id = ids.get(value);
+
+            if (id != null) {
+                return id;
+            }
+
+            values.add(value);
+            ids.put(value, values.size() - 1);
+
+            return values.size() - 1;
+        }
+
+        String get(int id) {
+            return values.get(id);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
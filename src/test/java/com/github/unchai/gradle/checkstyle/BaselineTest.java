@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BaselineTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void keepOnlyIntroducedViolations() throws IOException {
+        final File baseFile = write("base.java", "class A {", "    int a = 5;", "}");
+        final File headFile = write("head.java", "class A {", "    // moved down", "    int a = 5;", "    int b = 7;", "}");
+
+        final List<CheckstyleError> errors = Baseline.newViolations(
+            Arrays.asList(error(3, "'5' is a magic number."), error(4, "'7' is a magic number.")),
+            headFile,
+            Collections.singletonList(error(2, "'5' is a magic number.")),
+            baseFile
+        );
+
+        assertThat(errors.size(), is(1));
+        assertThat(errors.get(0).getLine(), is(4));
+    }
+
+    @Test
+    public void reportDuplicatedViolations() throws IOException {
+        final File baseFile = write("base.java", "void a() {", "    f(5);", "}");
+        final File headFile = write("head.java", "void a() {", "    f(5);", "}", "void a() {", "    f(5);", "}");
+
+        final List<CheckstyleError> errors = Baseline.newViolations(
+            Arrays.asList(error(2, "'5' is a magic number."), error(5, "'5' is a magic number.")),
+            headFile,
+            Collections.singletonList(error(2, "'5' is a magic number.")),
+            baseFile
+        );
+
+        assertThat(errors.size(), is(1));
+    }
+
+    private File write(String name, String... lines) throws IOException {
+        final File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static CheckstyleError error(int line, String message) {
+        final CheckstyleError error = new CheckstyleError();
+        error.setSeverityLevel(Severity.ERROR);
+        error.setPath("A.java");
+        error.setLine(line);
+        error.setMessage(message);
+        error.setSource("com.puppycrawl.tools.checkstyle.checks.coding.MagicNumberCheck");
+        return error;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ChangedFileRouteTest {
+    @Test
+    public void ownsFilesUnderPrefix() {
+        final ChangedFileRoute route = route("api/", Collections.emptyList());
+
+        assertThat(route.owns("api/src/main/java/A.java"), is(true));
+        assertThat(route.owns("apix/src/main/java/A.java"), is(false));
+        assertThat(route.owns("src/main/java/A.java"), is(false));
+    }
+
+    @Test
+    public void skipsNestedProjects() {
+        final ChangedFileRoute route = route("", Collections.singletonList("api/"));
+
+        assertThat(route.owns("src/main/java/A.java"), is(true));
+        assertThat(route.owns("api/src/main/java/A.java"), is(false));
+    }
+
+    private ChangedFileRoute route(String prefix, List<String> excludedPrefixes) {
+        final ChangedFileRoute route = new ChangedFileRoute();
+        route.setName("test");
+        route.setPrefix(prefix);
+        route.setExcludedPrefixes(excludedPrefixes);
+        return route;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.GradleException;
+import org.junit.Test;
+import org.kohsuke.github.GitHub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CheckRunPublisherTest {
+    private final List<String> requests = new ArrayList<>();
+    private final List<ByteArrayOutputStream> bodies = new ArrayList<>();
+
+    @Test
+    public void publishAnnotationsInBatches() throws Exception {
+        final GitHub github = mock(GitHub.class);
+        when(github.getApiUrl()).thenReturn("https://api.github.com");
+        when(github.getConnector()).thenReturn(url -> {
+            final HttpURLConnection connection = mock(HttpURLConnection.class);
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+            doAnswer(invocation -> requests.add(invocation.getArgument(0) + " " + url.getPath()))
+                .when(connection).setRequestMethod(anyString());
+            when(connection.getOutputStream()).thenReturn(body);
+            when(connection.getResponseCode()).thenReturn(200);
+            when(connection.getInputStream())
+                .thenReturn(new ByteArrayInputStream("{\"id\":7}".getBytes(StandardCharsets.UTF_8)));
+
+            bodies.add(body);
+            return connection;
+        });
+
+        final ViolationStore errors = new ViolationStore();
+
+        for (int i = 0; i < 120; i++) {
+            errors.add(i == 0 ? Severity.ERROR : Severity.WARNING, "src/A.java", i + 1, "magic", "MagicNumberCheck");
+        }
+
+        final int calls = new CheckRunPublisher(github, "token", "o/r", "abc")
+            .publish(
+                errors,
+                CheckstyleGithubTask.buildSeverityLevelCountMap(errors),
+                new PublishScheduler(() -> null, 1, 0, 1)
+            );
+
+        assertThat(calls, is(4));
+        assertThat(requests.get(0), is("POST /repos/o/r/check-runs"));
+        assertThat(requests.get(3), is("PATCH /repos/o/r/check-runs/7"));
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode create = mapper.readTree(bodies.get(0).toByteArray());
+        final JsonNode update = mapper.readTree(bodies.get(1).toByteArray());
+        final JsonNode complete = mapper.readTree(bodies.get(3).toByteArray());
+
+        assertThat(create.get("head_sha").asText(), is("abc"));
+        assertThat(update.at("/output/annotations").size(), is(CheckRunPublisher.ANNOTATIONS_PER_REQUEST));
+        assertThat(update.at("/output/summary").asText(), is("checkstyle reported 119 warnings, 1 errors."));
+        assertThat(complete.at("/output/annotations").size(), is(20));
+        assertThat(complete.get("conclusion").asText(), is("failure"));
+    }
+
+    @Test
+    public void paceByRateLimitOfCheckRunResponses() throws Exception {
+        final long reset = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3;
+        final GitHub github = mock(GitHub.class);
+        when(github.getApiUrl()).thenReturn("https://api.github.com");
+        when(github.getConnector()).thenReturn(url -> {
+            final HttpURLConnection connection = mock(HttpURLConnection.class);
+
+            when(connection.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+            when(connection.getResponseCode()).thenReturn(200);
+            when(connection.getHeaderField("X-RateLimit-Limit")).thenReturn("5000");
+            when(connection.getHeaderField("X-RateLimit-Remaining")).thenReturn("1");
+            when(connection.getHeaderField("X-RateLimit-Reset")).thenReturn(String.valueOf(reset));
+            when(connection.getInputStream())
+                .thenReturn(new ByteArrayInputStream("{\"id\":7}".getBytes(StandardCharsets.UTF_8)));
+
+            return connection;
+        });
+
+        final ViolationStore errors = new ViolationStore();
+        errors.add(Severity.ERROR, "src/A.java", 1, "magic", "MagicNumberCheck");
+
+        new CheckRunPublisher(github, "token", "o/r", "abc")
+            .publish(errors, CheckstyleGithubTask.buildSeverityLevelCountMap(errors), new PublishScheduler(() -> null, 1, 0, 1));
+
+        // the completing update waits for the reset the create response announced
+        assertThat(System.currentTimeMillis() >= TimeUnit.SECONDS.toMillis(reset), is(true));
+    }
+
+    @Test
+    public void failClearlyWithoutInstallationToken() throws Exception {
+        final GitHub github = mock(GitHub.class);
+        when(github.getApiUrl()).thenReturn("https://api.github.com");
+        when(github.getConnector()).thenReturn(url -> {
+            final HttpURLConnection connection = mock(HttpURLConnection.class);
+
+            when(connection.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+            when(connection.getResponseCode()).thenReturn(HttpURLConnection.HTTP_FORBIDDEN);
+            when(connection.getErrorStream()).thenReturn(new ByteArrayInputStream(
+                "{\"message\":\"You must authenticate via a GitHub App.\"}".getBytes(StandardCharsets.UTF_8)
+            ));
+
+            return connection;
+        });
+
+        final ViolationStore errors = new ViolationStore();
+        errors.add(Severity.ERROR, "src/A.java", 1, "magic", "MagicNumberCheck");
+
+        try {
+            new CheckRunPublisher(github, "token", "o/r", "abc")
+                .publish(errors, CheckstyleGithubTask.buildSeverityLevelCountMap(errors), new PublishScheduler(() -> null, 1, 0, 1));
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getMessage(), containsString("GitHub App installation token"));
+            assertThat(e.getMessage(), containsString("You must authenticate via a GitHub App."));
+        }
+    }
+}
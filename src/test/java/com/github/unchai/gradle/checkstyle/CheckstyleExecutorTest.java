@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.PropertiesExpander;
+
+public class CheckstyleExecutorTest {
+    private static final int FILE_COUNT = 24;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String baseDir;
+    private String configLocation;
+    private List<ChangedFile> files;
+
+    @Before
+    public void setUp() throws IOException {
+        baseDir = temporaryFolder.getRoot().getPath();
+        configLocation = new File(this.getClass().getResource("/checkstyle.xml").getFile()).getPath();
+        files = new ArrayList<>();
+
+        for (int i = 0; i < FILE_COUNT; i++) {
+            final String path = "src/Sample" + i + ".java";
+            final File file = new File(baseDir, path);
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), buildSource(i).getBytes(StandardCharsets.UTF_8));
+            files.add(changedFile(path, 1, 1000));
+        }
+    }
+
+    @Test
+    public void executeReportsRelativePaths() {
+        final List<CheckstyleError> errors = new CheckstyleExecutor(configLocation, 1).execute(baseDir, files);
+
+        assertThat(errors.isEmpty(), is(false));
+        assertThat(errors.get(0).getPath(), is("src/Sample0.java"));
+    }
+
+    @Test
+    public void executeInParallelMatchesSequentialRun() {
+        final List<CheckstyleError> sequential = new CheckstyleExecutor(configLocation, 1).execute(baseDir, files);
+        final List<CheckstyleError> parallel = new CheckstyleExecutor(configLocation, 8).execute(baseDir, files);
+
+        assertThat(parallel, is(sequential));
+    }
+
+    @Test
+    public void executeWithSharedPoolMatchesStandaloneRun() {
+        final List<CheckstyleError> standalone = new CheckstyleExecutor(configLocation, 4).execute(baseDir, files);
+
+        try (CheckerPool pool = new CheckerPool()) {
+            assertThat(new CheckstyleExecutor(configLocation, 4, null, pool).execute(baseDir, files), is(standalone));
+            assertThat(new CheckstyleExecutor(configLocation, 2, null, pool).execute(baseDir, files), is(standalone));
+        }
+    }
+
+    @Test
+    public void executeWithSharedPoolPicksUpEditedRuleset() throws IOException {
+        final File ruleset = temporaryFolder.newFile("ruleset.xml");
+        final String content = new String(Files.readAllBytes(new File(configLocation).toPath()), StandardCharsets.UTF_8);
+
+        try (CheckerPool pool = new CheckerPool()) {
+            Files.write(ruleset.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            final List<CheckstyleError> before = new CheckstyleExecutor(ruleset.getPath(), 4, null, pool).execute(baseDir, files);
+
+            Files.write(ruleset.toPath(), content.replace("<module name=\"WhitespaceAround\"/>", "").getBytes(StandardCharsets.UTF_8));
+            final List<CheckstyleError> after = new CheckstyleExecutor(ruleset.getPath(), 4, null, pool).execute(baseDir, files);
+
+            assertThat(after, is(new CheckstyleExecutor(ruleset.getPath(), 4).execute(baseDir, files)));
+            assertThat(after.size() < before.size(), is(true));
+        }
+    }
+
+    @Test
+    public void executeWithSharedPoolPicksUpEditedSuppressions() throws IOException {
+        final File suppressions = temporaryFolder.newFile("suppressions.xml");
+        final File ruleset = temporaryFolder.newFile("suppressed.xml");
+        final String content = new String(Files.readAllBytes(new File(configLocation).toPath()), StandardCharsets.UTF_8);
+
+        Files.write(ruleset.toPath(), content.replace("<module name=\"TreeWalker\">", "<module name=\"SuppressionFilter\">\n"
+            + "        <property name=\"file\" value=\"" + suppressions.getPath() + "\"/>\n"
+            + "    </module>\n"
+            + "    <module name=\"TreeWalker\">").getBytes(StandardCharsets.UTF_8));
+
+        try (CheckerPool pool = new CheckerPool()) {
+            Files.write(suppressions.toPath(), suppressions("").getBytes(StandardCharsets.UTF_8));
+            final List<CheckstyleError> before = new CheckstyleExecutor(ruleset.getPath(), 4, null, pool).execute(baseDir, files);
+
+            Files.write(suppressions.toPath(), suppressions("<suppress checks=\"WhitespaceAround\" files=\".*\"/>")
+                .getBytes(StandardCharsets.UTF_8));
+            final List<CheckstyleError> after = new CheckstyleExecutor(ruleset.getPath(), 4, null, pool).execute(baseDir, files);
+
+            assertThat(after, is(new CheckstyleExecutor(ruleset.getPath(), 4).execute(baseDir, files)));
+            assertThat(after.size() < before.size(), is(true));
+        }
+    }
+
+    @Test
+    public void executeWithCacheMatchesUncachedRun() throws IOException {
+        final File cacheDir = temporaryFolder.newFolder("cache");
+        final List<CheckstyleError> uncached = new CheckstyleExecutor(configLocation, 4).execute(baseDir, files);
+
+        final CheckstyleResultCache cold = new CheckstyleResultCache(cacheDir, "8.29", Long.MAX_VALUE, Long.MAX_VALUE);
+        assertThat(new CheckstyleExecutor(configLocation, 4, cold).execute(baseDir, files), is(uncached));
+        assertThat(cold.getHitCount(), is(0));
+
+        final CheckstyleResultCache warm = new CheckstyleResultCache(cacheDir, "8.29", Long.MAX_VALUE, Long.MAX_VALUE);
+        assertThat(new CheckstyleExecutor(configLocation, 4, warm).execute(baseDir, files), is(uncached));
+        assertThat(warm.getHitCount(), is(FILE_COUNT));
+    }
+
+    @Test
+    public void executeWithCacheReusesResultsForOtherChangedLines() throws IOException {
+        final File cacheDir = temporaryFolder.newFolder("cache");
+        final List<ChangedFile> rebased = Collections.singletonList(changedFile("src/Sample3.java", 3, 3));
+
+        final CheckstyleResultCache cold = new CheckstyleResultCache(cacheDir, "8.29", Long.MAX_VALUE, Long.MAX_VALUE);
+        new CheckstyleExecutor(configLocation, 4, cold).execute(baseDir, files);
+
+        final CheckstyleResultCache warm = new CheckstyleResultCache(cacheDir, "8.29", Long.MAX_VALUE, Long.MAX_VALUE);
+        assertThat(
+            new CheckstyleExecutor(configLocation, 4, warm).execute(baseDir, rebased),
+            is(new CheckstyleExecutor(configLocation, 4).execute(baseDir, rebased))
+        );
+        assertThat(warm.getHitCount(), is(1));
+    }
+
+    @Test
+    public void executeEvictsCacheBeyondMaxSize() throws IOException {
+        final File cacheDir = temporaryFolder.newFolder("cache");
+
+        final CheckstyleResultCache cache = new CheckstyleResultCache(cacheDir, "8.29", 0, Long.MAX_VALUE);
+        new CheckstyleExecutor(configLocation, 4, cache).execute(baseDir, files);
+
+        final CheckstyleResultCache next = new CheckstyleResultCache(cacheDir, "8.29", 0, Long.MAX_VALUE);
+        new CheckstyleExecutor(configLocation, 4, next).execute(baseDir, files);
+        assertThat(next.getHitCount(), is(0));
+    }
+
+    @Test
+    public void executeReportsChangedLinesOnly() {
+        final List<ChangedFile> changedFiles = new ArrayList<>();
+        changedFiles.add(changedFile("src/Sample3.java", 3, 3));
+        changedFiles.add(changedFile("src/Sample4.java", 1, 0));
+
+        final List<CheckstyleError> errors = new CheckstyleExecutor(configLocation, 2).execute(baseDir, changedFiles);
+
+        assertThat(errors.isEmpty(), is(false));
+
+        for (CheckstyleError error : errors) {
+            assertThat(error.getPath(), is("src/Sample3.java"));
+            assertThat(error.getLine(), is(3));
+        }
+    }
+
+    @Test
+    public void executeChecksAcrossFilesInOnePass() throws IOException {
+        final String translationConfig =
+            new File(this.getClass().getResource("/checkstyle-translation.xml").getFile()).getPath();
+
+        final List<ChangedFile> changedFiles = new ArrayList<>(files.subList(0, 3));
+        changedFiles.add(writeFile("src/messages.properties", "greeting=hello\nfarewell=bye\n"));
+        changedFiles.add(writeFile("src/messages_de.properties", "greeting=hallo\n"));
+
+        final List<CheckstyleError> errors = new CheckstyleExecutor(translationConfig, 4).execute(baseDir, changedFiles);
+        final CheckstyleError missingKey = errors.get(errors.size() - 1);
+
+        assertThat(errors.size(), is(7));
+        assertThat(missingKey.getPath(), is("src/messages_de.properties"));
+        assertThat(missingKey.getMessage(), is("Key 'farewell' missing."));
+        assertThat(new CheckstyleExecutor(translationConfig, 1).execute(baseDir, changedFiles), is(errors));
+    }
+
+    @Test
+    public void executeMatchesPlainCheckstyleRunWithStatefulCheck() throws Exception {
+        final File ruleset = writeJavadocPackageRuleset();
+        final List<ChangedFile> changedFiles = writePackages();
+        final List<File> allFiles = new ArrayList<>();
+
+        for (ChangedFile changedFile : changedFiles) {
+            allFiles.add(new File(baseDir, changedFile.getPath()));
+        }
+
+        final Checker checker = new Checker();
+        final CheckstyleAuditListener listener = new CheckstyleAuditListener();
+        checker.setModuleClassLoader(Checker.class.getClassLoader());
+        checker.configure(ConfigurationLoader.loadConfiguration(ruleset.getPath(), new PropertiesExpander(System.getProperties())));
+        checker.addListener(listener);
+        checker.process(allFiles);
+        checker.destroy();
+
+        final List<CheckstyleError> errors = new CheckstyleExecutor(ruleset.getPath(), 8).execute(baseDir, changedFiles);
+
+        assertThat(errors.size(), is(listener.getErrors().size()));
+
+        for (int i = 0; i < errors.size(); i++) {
+            final CheckstyleError expected = listener.getErrors().get(i);
+
+            assertThat(new File(baseDir, errors.get(i).getPath()).getPath(), is(expected.getPath()));
+            assertThat(errors.get(i).getLine(), is(expected.getLine()));
+            assertThat(errors.get(i).getMessage(), is(expected.getMessage()));
+        }
+
+        assertThat(missingPackageInfos(errors), is(2L));
+    }
+
+    @Test
+    public void executeWithSharedPoolDoesNotReuseStatefulCheckers() throws IOException {
+        final File ruleset = writeJavadocPackageRuleset();
+        final List<ChangedFile> changedFiles = writePackages();
+
+        try (CheckerPool pool = new CheckerPool()) {
+            final List<CheckstyleError> first = new CheckstyleExecutor(ruleset.getPath(), 4, null, pool).execute(baseDir, changedFiles);
+            final List<CheckstyleError> second = new CheckstyleExecutor(ruleset.getPath(), 4, null, pool).execute(baseDir, changedFiles);
+
+            assertThat(missingPackageInfos(first), is(2L));
+            assertThat(second, is(first));
+        }
+    }
+
+    private static long missingPackageInfos(List<CheckstyleError> errors) {
+        return errors.stream().filter(error -> "Missing package-info.java file.".equals(error.getMessage())).count();
+    }
+
+    private File writeJavadocPackageRuleset() throws IOException {
+        final File ruleset = temporaryFolder.newFile("javadoc-package.xml");
+        Files.write(ruleset.toPath(), ("<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\"\n"
+            + "    \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n"
+            + "<module name=\"Checker\">\n"
+            + "    <module name=\"JavadocPackage\"/>\n"
+            + "    <module name=\"TreeWalker\">\n"
+            + "        <module name=\"MagicNumber\"/>\n"
+            + "    </module>\n"
+            + "</module>\n").getBytes(StandardCharsets.UTF_8));
+        return ruleset;
+    }
+
+    // two packages without package-info.java, four files each
+    private List<ChangedFile> writePackages() throws IOException {
+        final List<ChangedFile> changedFiles = new ArrayList<>();
+
+        for (String pkg : new String[] {"first", "second"}) {
+            new File(baseDir, "src/" + pkg).mkdirs();
+
+            for (int i = 0; i < 4; i++) {
+                changedFiles.add(writeFile("src/" + pkg + "/Sample" + i + ".java", "package " + pkg + ";\n" + buildSource(i)));
+            }
+        }
+
+        return changedFiles;
+    }
+
+    private static String suppressions(String suppress) {
+        return "<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE suppressions PUBLIC \"-//Checkstyle//DTD SuppressionFilter Configuration 1.2//EN\"\n"
+            + "    \"https://checkstyle.org/dtds/suppressions_1_2.dtd\">\n"
+            + "<suppressions>" + suppress + "</suppressions>\n";
+    }
+
+    private ChangedFile writeFile(String path, String content) throws IOException {
+        Files.write(new File(baseDir, path).toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return changedFile(path, 0, 1000);
+    }
+
+    private ChangedFile changedFile(String path, int fromLine, int toLine) {
+        final RangeLinePositionIndex.Builder builder = new RangeLinePositionIndex.Builder();
+
+        for (int line = fromLine; line <= toLine; line++) {
+            builder.add(line, line);
+        }
+
+        final ChangedFile changedFile = new ChangedFile();
+        changedFile.setPath(path);
+        changedFile.setLinePositionIndex(builder.build());
+        return changedFile;
+    }
+
+    private String buildSource(int index) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("public class Sample").append(index).append(" {\n");
+
+        for (int i = 0; i <= index; i++) {
+            builder.append("    int method").append(i).append("(int value) {\n");
+            builder.append("        return value+").append(i + 100).append(";\n");
+            builder.append("    }\n");
+        }
+
+        builder.append("}\n");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+public class CheckstyleResultCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void hashCoversReferencedFiles() throws IOException, CheckstyleException {
+        final File suppressions = temporaryFolder.newFile("suppressions.xml");
+        Files.write(suppressions.toPath(), "<suppressions/>".getBytes(StandardCharsets.UTF_8));
+
+        final String before = CheckstyleResultCache.hash(configuration(suppressions));
+
+        Files.write(suppressions.toPath(), "<suppressions><suppress checks=\".*\" files=\"A\"/></suppressions>".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(CheckstyleResultCache.hash(configuration(suppressions)), is(not(before)));
+    }
+
+    @Test
+    public void evictAtMostOncePerInterval() throws IOException {
+        final File directory = temporaryFolder.newFolder("cache");
+
+        final CheckstyleResultCache first = new CheckstyleResultCache(directory, "8.29", Long.MAX_VALUE, 1000);
+        first.put("aa01", Collections.emptyList());
+        expire(directory, "aa01");
+        first.evict();
+
+        assertThat(first.get("aa01", "A.java"), is(nullValue()));
+
+        final CheckstyleResultCache second = new CheckstyleResultCache(directory, "8.29", Long.MAX_VALUE, 1000);
+        second.put("aa02", Collections.emptyList());
+        expire(directory, "aa02");
+        second.evict();
+
+        assertThat(second.get("aa02", "A.java"), is(Collections.emptyList()));
+    }
+
+    private static DefaultConfiguration configuration(File suppressions) {
+        final DefaultConfiguration filter = new DefaultConfiguration("SuppressionFilter");
+        filter.addAttribute("file", suppressions.getPath());
+
+        final DefaultConfiguration checker = new DefaultConfiguration("Checker");
+        checker.addChild(filter);
+        return checker;
+    }
+
+    private static void expire(File directory, String key) throws IOException {
+        Files.setLastModifiedTime(
+            directory.toPath().resolve(key.substring(0, 2)).resolve(key + ".txt"),
+            FileTime.fromMillis(System.currentTimeMillis() - 60_000)
+        );
+    }
+}
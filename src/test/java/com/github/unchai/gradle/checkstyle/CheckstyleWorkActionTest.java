@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckstyleWorkActionTest {
+    private static final String RULESET = "<?xml version=\"1.0\"?>\n"
+        + "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\"\n"
+        + "    \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n"
+        + "<module name=\"Checker\">\n"
+        + "    <module name=\"JavadocPackage\"/>\n"
+        + "</module>\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File baseDir;
+    private File ruleset;
+    private File changedFilesFile;
+
+    @Before
+    public void setUp() throws IOException {
+        baseDir = temporaryFolder.newFolder("project");
+        ruleset = temporaryFolder.newFile("checkstyle.xml");
+        changedFilesFile = temporaryFolder.newFile("changed-files.json");
+
+        Files.write(ruleset.toPath(), RULESET.getBytes(StandardCharsets.UTF_8));
+
+        final File source = new File(baseDir, "src/sample/Sample.java");
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), "package sample;\n\npublic class Sample {\n}\n".getBytes(StandardCharsets.UTF_8));
+
+        final RangeLinePositionIndex.Builder builder = new RangeLinePositionIndex.Builder();
+        builder.add(1, 1);
+
+        final ChangedFile changedFile = new ChangedFile();
+        changedFile.setPath("src/sample/Sample.java");
+        changedFile.setLinePositionIndex(builder.build());
+        ReportFiles.writeChangedFiles(changedFilesFile, Collections.singletonList(changedFile));
+    }
+
+    // a reused worker process runs the checks of one build after another through the same pool
+    @Test
+    public void checkReportsStatefulChecksAgainInLaterBuilds() throws IOException {
+        assertThat(check().size(), is(1));
+        assertThat(check().size(), is(1));
+    }
+
+    private List<CheckstyleError> check() throws IOException {
+        final File resultsFile = temporaryFolder.newFile();
+
+        CheckstyleWorkAction.check(
+            new CheckstyleExecutor(ruleset.getPath(), 2, null, CheckstyleWorkAction.POOL),
+            null,
+            baseDir,
+            changedFilesFile,
+            resultsFile
+        );
+
+        final List<CheckstyleError> errors = new ArrayList<>();
+        ReportFiles.forEachError(resultsFile, errors::add);
+        return errors;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.kohsuke.github.GHPullRequestReviewComment;
+
+public class CommentReconcilerTest {
+    private final CommentReconciler reconciler = new CommentReconciler(comment -> "body of " + comment.getPath());
+
+    @Test
+    public void reconcileKeepsUnchangedComments() {
+        final GHPullRequestReviewComment existing = existing("A.java", 3, "body of A.java\r\n");
+
+        final CommentReconciler.Reconciliation reconciliation =
+            reconciler.reconcile(Collections.singletonList(existing), Collections.singletonList(comment("A.java", 3)));
+
+        assertThat(reconciliation.getUnchangedCount(), is(1));
+        assertThat(reconciliation.getStaleComments().isEmpty(), is(true));
+        assertThat(reconciliation.getNewComments().isEmpty(), is(true));
+        assertThat(reconciliation.getSavedCalls(0), is(2));
+        assertThat(reconciliation.getSavedCalls(50), is(2));
+    }
+
+    @Test
+    public void reconcileCountsSavedCallsOfBatchedReviews() {
+        final CommentReconciler.Reconciliation reconciliation = reconciler.reconcile(
+            Arrays.asList(existing("A.java", 1, "body of A.java"), existing("B.java", 1, "body of B.java")),
+            Arrays.asList(comment("A.java", 1), comment("B.java", 1), comment("C.java", 1))
+        );
+
+        assertThat(reconciliation.getSavedCalls(0), is(4));
+        // 2 deletes, while the 3 comments would have fit in the same single review as the new one
+        assertThat(reconciliation.getSavedCalls(50), is(2));
+        assertThat(reconciliation.getSavedCalls(2), is(3));
+    }
+
+    @Test
+    public void reconcileReplacesMovedComments() {
+        final GHPullRequestReviewComment moved = existing("A.java", 3, "body of A.java");
+        final GHPullRequestReviewComment outdated = existing("B.java", 0, "body of B.java");
+
+        final CommentReconciler.Reconciliation reconciliation = reconciler.reconcile(
+            Arrays.asList(moved, outdated),
+            Arrays.asList(comment("A.java", 4), comment("C.java", 1))
+        );
+
+        assertThat(reconciliation.getUnchangedCount(), is(0));
+        assertThat(reconciliation.getStaleComments(), hasItems(moved, outdated));
+        assertThat(reconciliation.getNewComments().size(), is(2));
+    }
+
+    @Test
+    public void reconcileRemovesDuplicatedComments() {
+        final GHPullRequestReviewComment first = existing("A.java", 3, "body of A.java");
+        final GHPullRequestReviewComment second = existing("A.java", 3, "body of A.java");
+
+        final CommentReconciler.Reconciliation reconciliation =
+            reconciler.reconcile(Arrays.asList(first, second), Collections.singletonList(comment("A.java", 3)));
+
+        assertThat(reconciliation.getUnchangedCount(), is(1));
+        assertThat(reconciliation.getStaleComments().size(), is(1));
+        assertThat(reconciliation.getNewComments().isEmpty(), is(true));
+    }
+
+    private GHPullRequestReviewComment existing(String path, int position, String body) {
+        final GHPullRequestReviewComment comment = mock(GHPullRequestReviewComment.class);
+        when(comment.getPath()).thenReturn(path);
+        when(comment.getPosition()).thenReturn(position);
+        when(comment.getBody()).thenReturn(body);
+        return comment;
+    }
+
+    private Comment comment(String path, int position) {
+        final Comment comment = new Comment();
+        comment.setPath(path);
+        comment.setPosition(position);
+        comment.setCheckstyleErrors(Collections.emptyList());
+        return comment;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConfigReferencesTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void referencedFiles() throws IOException {
+        final File projectDir = temporaryFolder.getRoot();
+        final File suppressions = temporaryFolder.newFile("suppressions.xml");
+        final File header = temporaryFolder.newFile("header.txt");
+        final File configFile = temporaryFolder.newFile("checkstyle.xml");
+
+        Files.write(configFile.toPath(), ("<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\""
+            + " \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n"
+            + "<module name=\"Checker\">\n"
+            + "    <property name=\"cacheFile\" value=\"checkstyle.xml\"/>\n"
+            + "    <module name=\"SuppressionFilter\">\n"
+            + "        <property name=\"file\" value=\"suppressions.xml\"/>\n"
+            + "    </module>\n"
+            + "    <module name=\"Header\">\n"
+            + "        <property name=\"headerFile\" value=\"${checkstyle.header.dir}/header.txt\"/>\n"
+            + "    </module>\n"
+            + "    <module name=\"ImportControl\">\n"
+            + "        <property name=\"file\" value=\"${undefined}/import-control.xml\"/>\n"
+            + "    </module>\n"
+            + "    <module name=\"LineLength\">\n"
+            + "        <property name=\"max\" value=\"100\"/>\n"
+            + "    </module>\n"
+            + "</module>\n").getBytes(StandardCharsets.UTF_8));
+
+        System.setProperty("checkstyle.header.dir", projectDir.getPath());
+
+        try {
+            assertThat(ConfigReferences.referencedFiles(configFile, projectDir), is(Arrays.asList(suppressions, header)));
+        } finally {
+            System.clearProperty("checkstyle.header.dir");
+        }
+    }
+}
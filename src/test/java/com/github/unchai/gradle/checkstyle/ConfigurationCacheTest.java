@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConfigurationCacheTest {
+    private static final String REPOSITORY = "owner/repo";
+    private static final int PULL_REQUEST = 1;
+    private static final String CHECKSTYLE_XML = "<?xml version=\"1.0\"?>\n"
+        + "<!DOCTYPE module PUBLIC \"-//Checkstyle//DTD Checkstyle Configuration 1.3//EN\""
+        + " \"https://checkstyle.org/dtds/configuration_1_3.dtd\">\n"
+        + "<module name=\"Checker\">\n"
+        + "    <module name=\"TreeWalker\">\n"
+        + "        <module name=\"MagicNumber\"/>\n"
+        + "    </module>\n"
+        + "</module>\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeGithubServer server;
+    private File projectDir;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeGithubServer(REPOSITORY, PULL_REQUEST);
+        projectDir = temporaryFolder.newFolder("project");
+
+        write("settings.gradle", "rootProject.name = 'configuration-cache'\n");
+        write("checkstyle.xml", CHECKSTYLE_XML);
+        write("build.gradle", "plugins { id 'com.github.unchai.checkstyle-github' }\n"
+            + "repositories { mavenCentral() }\n"
+            + "checkstyleGithub {\n"
+            + "    ghEndpoint = '" + server.getEndpoint() + "'\n"
+            + "    ghRepository = '" + REPOSITORY + "'\n"
+            + "    configLocation = 'checkstyle.xml'\n"
+            + "    cacheEnabled = false\n"
+            + "    httpCacheEnabled = false\n"
+            + "}\n");
+
+        final List<String> lines = Arrays.asList("package sample;", "", "public class Sample {", "    int value() { return 100; }", "}");
+        write("src/main/java/sample/Sample.java", String.join("\n", lines) + "\n");
+        server.addFile("src/main/java/sample/Sample.java", "added", FakeGithubServer.addedPatch(lines));
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void reuseConfigurationCacheWithoutStoringToken() throws IOException {
+        final BuildResult first = publish("first-token");
+
+        assertThat(first.task(":checkstyleGithub").getOutcome(), is(TaskOutcome.SUCCESS));
+        assertThat(first.getOutput(), not(containsString("Reusing configuration cache.")));
+
+        final BuildResult second = publish("second-token");
+
+        assertThat(second.task(":checkstyleGithub").getOutcome(), is(TaskOutcome.SUCCESS));
+        assertThat(second.getOutput(), containsString("Reusing configuration cache."));
+        assertThat(server.getAuthorizations(), hasItem(containsString("second-token")));
+        assertThat(cachedFilesContaining("first-token"), is(Arrays.<Path>asList()));
+    }
+
+    private BuildResult publish(String token) {
+        final Map<String, String> environment = new HashMap<>(System.getenv());
+        environment.put("GITHUB_TOKEN", token);
+
+        return GradleRunner.create()
+            .withProjectDir(projectDir)
+            .withPluginClasspath()
+            .withEnvironment(environment)
+            .withArguments("checkstyleGithub", "--configuration-cache", "--githubPullRequest=" + PULL_REQUEST, "--stacktrace")
+            .forwardOutput()
+            .build();
+    }
+
+    private List<Path> cachedFilesContaining(String text) throws IOException {
+        try (Stream<Path> files = Files.walk(new File(projectDir, ".gradle/configuration-cache").toPath())) {
+            return files.filter(Files::isRegularFile)
+                .filter(file -> contains(file, text))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean contains(Path file, String text) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1).contains(text);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void write(String path, String content) throws IOException {
+        final File file = new File(projectDir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// an in-process stand-in for the parts of the github api the plugin uses, serving generated fixtures
+class FakeGithubServer implements AutoCloseable {
+    static final String LOGIN = "checkstyle-bot";
+    static final String HEAD_SHA = "1111111111111111111111111111111111111111";
+    static final String BASE_SHA = "2222222222222222222222222222222222222222";
+
+    private static final int DEFAULT_PAGE_SIZE = 30;
+    private static final int MAX_PAGE_SIZE = 100;
+    // github lists at most this many files of a pull request
+    private static final int MAX_FILES = 3000;
+    private static final int HTTP_FORBIDDEN = 403;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final Pattern ID = Pattern.compile("/(\\d+|[0-9a-f]{40})(?=/|$)");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String owner;
+    private final String name;
+    private final int pullRequest;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final List<Map<String, Object>> files = Collections.synchronizedList(new ArrayList<>());
+    private final Map<Long, Map<String, Object>> comments = new ConcurrentSkipListMap<>();
+    private final List<String> statuses = Collections.synchronizedList(new ArrayList<>());
+    private final Set<String> authorizations = new ConcurrentSkipListSet<>();
+    private final Map<String, AtomicInteger> calls = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicInteger> refusals = new ConcurrentSkipListMap<>();
+    private final AtomicLong ids = new AtomicLong(1000);
+    private final AtomicInteger writes = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final AtomicInteger annotations = new AtomicInteger();
+
+    private volatile long latencyMillis;
+    private volatile int failEvery;
+    private volatile int rateLimit = 5000;
+    private final AtomicInteger rateLimitUsed = new AtomicInteger();
+    private final long rateLimitReset = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + TimeUnit.HOURS.toSeconds(1);
+
+    FakeGithubServer(String repository, int pullRequest) throws IOException {
+        this.owner = repository.substring(0, repository.indexOf('/'));
+        this.name = repository.substring(repository.indexOf('/') + 1);
+        this.pullRequest = pullRequest;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // every response is delayed by this much, like a distant or busy api
+    void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    // every nth comment, review or check run write is refused with a secondary rate limit, 0 disables it.
+    // answered with 429 rather than 403: the jdk server sends 'Retry-after', which github-api does not recognize
+    void setFailEvery(int failEvery) {
+        this.failEvery = failEvery;
+    }
+
+    // the next calls of a route ("GET /repos/owner/repo/pulls/{id}/files") are refused with a secondary rate limit
+    // the way github does it, 403 with a Retry-After header
+    void refuse(String route, int times) {
+        refusals.put(route, new AtomicInteger(times));
+    }
+
+    void setRateLimit(int rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    void addFile(String filename, String status, String patch) {
+        final Map<String, Object> file = new LinkedHashMap<>();
+        file.put("sha", HEAD_SHA);
+        file.put("filename", filename);
+        file.put("status", status);
+        file.put("patch", patch);
+        files.add(file);
+    }
+
+    long addComment(String path, int position, String body, String login) {
+        final long id = ids.incrementAndGet();
+        final Map<String, Object> comment = new LinkedHashMap<>();
+        comment.put("id", id);
+        comment.put("path", path);
+        comment.put("position", position);
+        comment.put("body", body);
+        comment.put("commit_id", HEAD_SHA);
+        comment.put("user", Collections.singletonMap("login", login));
+        comments.put(id, comment);
+        return id;
+    }
+
+    // an added file of the given lines as github reports its patch
+    static String addedPatch(List<String> lines) {
+        final StringBuilder builder = new StringBuilder(String.format("@@ -0,0 +1,%d @@", lines.size()));
+
+        for (String line : lines) {
+            builder.append("\n+").append(line);
+        }
+
+        return builder.toString();
+    }
+
+    int getCallCount(String route) {
+        final AtomicInteger count = calls.get(route);
+        return count == null ? 0 : count.get();
+    }
+
+    int getTotalCallCount() {
+        return calls.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    Map<String, Integer> getCallCounts() {
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        calls.forEach((route, count) -> counts.put(route, count.get()));
+        return counts;
+    }
+
+    int getCommentCount() {
+        return comments.size();
+    }
+
+    List<String> getStatuses() {
+        return new ArrayList<>(statuses);
+    }
+
+    // the Authorization headers requests came with
+    Set<String> getAuthorizations() {
+        return new TreeSet<>(authorizations);
+    }
+
+    int getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    int getAnnotationCount() {
+        return annotations.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final String method = exchange.getRequestMethod();
+            final String path = exchange.getRequestURI().getPath();
+            final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+            final String route = method + " " + ID.matcher(path).replaceAll("/{id}");
+            final AtomicInteger refusal = refusals.get(route);
+
+            calls.computeIfAbsent(route, key -> new AtomicInteger()).incrementAndGet();
+
+            if (authorization != null) {
+                authorizations.add(authorization);
+            }
+
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+
+            if (refusal != null && refusal.getAndDecrement() > 0) {
+                injectedErrors.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                send(exchange, HTTP_FORBIDDEN, Collections.singletonMap("message", "You have exceeded a secondary rate limit."));
+                return;
+            }
+
+            if (failEvery > 0 && isPublishWrite(method, path) && writes.incrementAndGet() % failEvery == 0) {
+                injectedErrors.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                send(exchange, HTTP_TOO_MANY_REQUESTS, Collections.singletonMap("message", "You have exceeded a secondary rate limit."));
+                return;
+            }
+
+            route(exchange, method, path);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static boolean isPublishWrite(String method, String path) {
+        return !"GET".equals(method) && !path.contains("/statuses/");
+    }
+
+    private void route(HttpExchange exchange, String method, String path) throws IOException {
+        final String repo = "/repos/" + owner + "/" + name;
+        final String pull = repo + "/pulls/" + pullRequest;
+
+        if ("GET".equals(method) && "/user".equals(path)) {
+            send(exchange, 200, Collections.singletonMap("login", LOGIN));
+        } else if ("GET".equals(method) && path.startsWith("/users/")) {
+            send(exchange, 200, Collections.singletonMap("login", path.substring("/users/".length())));
+        } else if ("GET".equals(method) && "/rate_limit".equals(path)) {
+            send(exchange, 200, Collections.singletonMap("resources", Collections.singletonMap("core", rateLimitRecord())));
+        } else if ("GET".equals(method) && repo.equals(path)) {
+            send(exchange, 200, repository());
+        } else if ("GET".equals(method) && pull.equals(path)) {
+            send(exchange, 200, pullRequest());
+        } else if ("GET".equals(method) && (pull + "/files").equals(path)) {
+            sendPage(exchange, new ArrayList<>(files.subList(0, Math.min(files.size(), MAX_FILES))));
+        } else if ("GET".equals(method) && (pull + "/comments").equals(path)) {
+            sendPage(exchange, new ArrayList<>(comments.values()));
+        } else if ("POST".equals(method) && (pull + "/comments").equals(path)) {
+            final JsonNode body = mapper.readTree(exchange.getRequestBody());
+            final long id = addComment(body.path("path").asText(), body.path("position").asInt(), body.path("body").asText(), LOGIN);
+            send(exchange, 201, comments.get(id));
+        } else if ("POST".equals(method) && (pull + "/reviews").equals(path)) {
+            final JsonNode body = mapper.readTree(exchange.getRequestBody());
+
+            for (JsonNode comment : body.path("comments")) {
+                addComment(comment.path("path").asText(), comment.path("position").asInt(), comment.path("body").asText(), LOGIN);
+            }
+
+            send(exchange, 200, review(body));
+        } else if ("DELETE".equals(method) && path.startsWith(repo + "/pulls/comments/")) {
+            final Map<String, Object> removed = comments.remove(Long.parseLong(path.substring(path.lastIndexOf('/') + 1)));
+            send(exchange, removed == null ? 404 : 204, null);
+        } else if ("POST".equals(method) && path.startsWith(repo + "/statuses/")) {
+            final JsonNode body = mapper.readTree(exchange.getRequestBody());
+            statuses.add(body.path("state").asText());
+            send(exchange, 201, status(body));
+        } else if ("POST".equals(method) && (repo + "/check-runs").equals(path)) {
+            mapper.readTree(exchange.getRequestBody());
+            send(exchange, 201, Collections.singletonMap("id", ids.incrementAndGet()));
+        } else if ("PATCH".equals(method) && path.startsWith(repo + "/check-runs/")) {
+            annotations.addAndGet(mapper.readTree(exchange.getRequestBody()).path("output").path("annotations").size());
+            send(exchange, 200, Collections.singletonMap("id", Long.parseLong(path.substring(path.lastIndexOf('/') + 1))));
+        } else {
+            send(exchange, 404, Collections.singletonMap("message", "Not Found"));
+        }
+    }
+
+    // pages the way github does, with per_page/page parameters and a Link header to the next one
+    private void sendPage(HttpExchange exchange, List<Map<String, Object>> items) throws IOException {
+        final Map<String, String> query = query(exchange.getRequestURI());
+        final int pageSize = Math.min(MAX_PAGE_SIZE, Integer.parseInt(query.getOrDefault("per_page", String.valueOf(DEFAULT_PAGE_SIZE))));
+        final int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        final int lastPage = Math.max(1, (items.size() + pageSize - 1) / pageSize);
+        final int from = Math.min(items.size(), (page - 1) * pageSize);
+
+        if (page < lastPage) {
+            final String url = getEndpoint() + exchange.getRequestURI().getPath() + "?per_page=" + pageSize + "&page=";
+            exchange.getResponseHeaders().add(
+                "Link",
+                String.format("<%s%d>; rel=\"next\", <%s%d>; rel=\"last\"", url, page + 1, url, lastPage)
+            );
+        }
+
+        send(exchange, 200, items.subList(from, Math.min(items.size(), from + pageSize)));
+    }
+
+    private void send(HttpExchange exchange, int code, Object body) throws IOException {
+        final Map<String, Object> limit = rateLimitRecord();
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", String.valueOf(limit.get("limit")));
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(limit.get("remaining")));
+        exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf(limit.get("reset")));
+
+        if (body == null) {
+            exchange.sendResponseHeaders(code, -1);
+            return;
+        }
+
+        final byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Map<String, Object> rateLimitRecord() {
+        final Map<String, Object> record = new LinkedHashMap<>();
+        record.put("limit", rateLimit);
+        record.put("remaining", Math.max(0, rateLimit - rateLimitUsed.incrementAndGet()));
+        record.put("reset", rateLimitReset);
+        return record;
+    }
+
+    private Map<String, Object> repository() {
+        final Map<String, Object> repository = new LinkedHashMap<>();
+        repository.put("id", 1);
+        repository.put("name", name);
+        repository.put("full_name", owner + "/" + name);
+        repository.put("owner", Collections.singletonMap("login", owner));
+        repository.put("url", getEndpoint() + "/repos/" + owner + "/" + name);
+        return repository;
+    }
+
+    private Map<String, Object> pullRequest() {
+        final Map<String, Object> head = new HashMap<>();
+        head.put("sha", HEAD_SHA);
+        head.put("ref", "feature");
+
+        final Map<String, Object> base = new HashMap<>();
+        base.put("sha", BASE_SHA);
+        base.put("ref", "master");
+
+        final Map<String, Object> pullRequest = new LinkedHashMap<>();
+        pullRequest.put("id", this.pullRequest);
+        pullRequest.put("number", this.pullRequest);
+        pullRequest.put("state", "open");
+        pullRequest.put("head", head);
+        pullRequest.put("base", base);
+        pullRequest.put("url", getEndpoint() + "/repos/" + owner + "/" + name + "/pulls/" + this.pullRequest);
+        return pullRequest;
+    }
+
+    private Map<String, Object> review(JsonNode body) {
+        final Map<String, Object> review = new LinkedHashMap<>();
+        review.put("id", ids.incrementAndGet());
+        review.put("commit_id", body.path("commit_id").asText());
+        review.put("body", body.path("body").asText());
+        review.put("state", "COMMENTED");
+        review.put("user", Collections.singletonMap("login", LOGIN));
+        return review;
+    }
+
+    private Map<String, Object> status(JsonNode body) {
+        final Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", ids.incrementAndGet());
+        status.put("state", body.path("state").asText());
+        status.put("context", body.path("context").asText());
+        status.put("description", body.path("description").asText(null));
+        return status;
+    }
+
+    private static Map<String, String> query(URI uri) {
+        final Map<String, String> query = new HashMap<>();
+
+        if (uri.getRawQuery() == null) {
+            return query;
+        }
+
+        for (String parameter : uri.getRawQuery().split("&")) {
+            final int separator = parameter.indexOf('=');
+
+            if (separator > 0) {
+                query.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+            }
+        }
+
+        return query;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GitDiffReaderTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final GitDiffReader gitDiffReader = new GitDiffReader(new File("."));
+
+    @Test
+    public void readMatchesPullRequestPatches() throws IOException {
+        final List<ChangedFile> changedFiles = read("/git_diff.txt");
+
+        assertThat(changedFiles.size(), is(3));
+
+        assertThat(changedFiles.get(0).getPath(), is("src/plugin.js"));
+        assertThat(changedFiles.get(0).getLinePositionIndex().size(), is(3));
+        assertThat(changedFiles.get(0).getLinePositionIndex().getPosition(27), is(5));
+        assertThat(changedFiles.get(0).getLinePositionIndex().getPosition(35), is(13));
+        assertThat(changedFiles.get(0).getLinePositionIndex().getPosition(36), is(14));
+
+        assertThat(changedFiles.get(1).getPath(), is(".gitignore"));
+        assertThat(changedFiles.get(1).getLinePositionIndex().getPosition(1), is(1));
+
+        assertThat(changedFiles.get(2).getPath(), is("my\tfile.txt"));
+        assertThat(changedFiles.get(2).getLinePositionIndex().getPosition(1), is(1));
+    }
+
+    @Test
+    public void readSkipsExcludedFiles() throws IOException {
+        final GitDiffReader filtered =
+            new GitDiffReader(new File("."), PathFilter.compile(null, Collections.singletonList("src/**")));
+
+        final List<ChangedFile> changedFiles = read(filtered, "/git_diff.txt");
+
+        assertThat(changedFiles.size(), is(2));
+        assertThat(changedFiles.get(0).getPath(), is(".gitignore"));
+        assertThat(changedFiles.get(1).getPath(), is("my\tfile.txt"));
+    }
+
+    @Test
+    public void listChangedFileIgnoresDiffConfig() throws IOException, InterruptedException {
+        final File repository = temporaryFolder.getRoot();
+        final File sub = new File(repository, "sub");
+        final File file = new File(sub, "A.txt");
+
+        assertThat(sub.mkdir(), is(true));
+        git(repository, "init", "--quiet");
+        git(repository, "config", "diff.context", "0");
+        git(repository, "config", "diff.relative", "true");
+        Files.write(file.toPath(), Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8", "9"));
+        git(repository, "add", ".");
+        git(repository, "commit", "--quiet", "-m", "base");
+        Files.write(file.toPath(), Arrays.asList("1", "2", "3", "4", "five", "6", "7", "8", "9"));
+        git(repository, "commit", "--quiet", "-am", "head");
+
+        final List<ChangedFile> changedFiles = new GitDiffReader(sub).listChangedFile("HEAD~1", "HEAD");
+
+        assertThat(changedFiles.size(), is(1));
+        assertThat(changedFiles.get(0).getPath(), is("sub/A.txt"));
+        assertThat(changedFiles.get(0).getLinePositionIndex().getPosition(5), is(5));
+    }
+
+    private static void git(File directory, String... args) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>(Arrays.asList(
+            "git", "-c", "user.name=test", "-c", "user.email=test@example.com", "-c", "commit.gpgsign=false"));
+        command.addAll(Arrays.asList(args));
+
+        assertThat(new ProcessBuilder(command).directory(directory).inheritIO().start().waitFor(), is(0));
+    }
+
+    private List<ChangedFile> read(String filename) throws IOException {
+        return read(gitDiffReader, filename);
+    }
+
+    private List<ChangedFile> read(GitDiffReader reader, String filename) throws IOException {
+        try (BufferedReader input = new BufferedReader(
+            new InputStreamReader(this.getClass().getResourceAsStream(filename), StandardCharsets.UTF_8))) {
+            return reader.read(input);
+        }
+    }
+}
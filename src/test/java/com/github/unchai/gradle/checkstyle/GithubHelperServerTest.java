@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+
+public class GithubHelperServerTest {
+    private FakeGithubServer server;
+    private GithubHelper githubHelper;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeGithubServer("owner/repo", 7);
+        githubHelper = GithubHelper.connect(server.getEndpoint(), "token", "owner/repo", 7, new OkHttpClient());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void listChangedFileAcrossPages() {
+        for (int i = 0; i < 75; i++) {
+            server.addFile("src/A" + i + ".java", "added", FakeGithubServer.addedPatch(Arrays.asList("class A" + i + " {", "}")));
+        }
+
+        server.addFile("README.md", "modified", FakeGithubServer.addedPatch(Collections.singletonList("text")));
+
+        final List<ChangedFile> changedFiles =
+            githubHelper.listChangedFile(PathFilter.compile(Collections.singletonList("**/*.java"), null), new TaskMetrics("test"));
+
+        assertThat(changedFiles.size(), is(75));
+        assertThat(changedFiles.get(74).getPath(), is("src/A74.java"));
+        assertThat(changedFiles.get(0).getBasePath(), is(nullValue()));
+        assertThat(server.getCallCount("GET /repos/owner/repo/pulls/{id}/files"), is(3));
+    }
+
+    @Test
+    public void listChangedFileWaitsOutSecondaryLimit() {
+        server.addFile("src/A.java", "added", FakeGithubServer.addedPatch(Arrays.asList("class A {", "}")));
+        server.refuse("GET /repos/owner/repo/pulls/{id}/files", 1);
+
+        final List<ChangedFile> changedFiles =
+            githubHelper.listChangedFile(PathFilter.compile(Collections.singletonList("**/*.java"), null), new TaskMetrics("test"));
+
+        assertThat(changedFiles.size(), is(1));
+        assertThat(server.getInjectedErrorCount(), is(1));
+        assertThat(server.getCallCount("GET /repos/owner/repo/pulls/{id}/files"), is(2));
+    }
+
+    @Test
+    public void reconcileCommentsInReviews() {
+        server.addComment("src/A.java", 1, "#### :rotating_light: checkstyle defects\n[ERROR] stale\n", FakeGithubServer.LOGIN);
+        server.addComment("src/A.java", 2, "looks good", "reviewer");
+
+        final CommentReconciler.Reconciliation reconciliation = reconcile(newComments(3, 5), 2);
+
+        assertThat(reconciliation.getStaleComments().size(), is(1));
+        assertThat(server.getCallCount("POST /repos/owner/repo/pulls/{id}/reviews"), is(2));
+        assertThat(server.getCallCount("DELETE /repos/owner/repo/pulls/comments/{id}"), is(1));
+        assertThat(server.getCommentCount(), is(4));
+    }
+
+    @Test
+    public void retryReviewsOnSecondaryLimit() {
+        server.setFailEvery(2);
+
+        reconcile(newComments(1, 4), 1);
+
+        assertThat(server.getInjectedErrorCount(), is(3));
+        assertThat(server.getCallCount("POST /repos/owner/repo/pulls/{id}/reviews"), is(7));
+        assertThat(server.getCommentCount(), is(4));
+    }
+
+    private CommentReconciler.Reconciliation reconcile(List<Comment> comments, int batchSize) {
+        final TaskMetrics metrics = new TaskMetrics("test");
+        return githubHelper.reconcileComments(githubHelper.listMyCommentsAsync(metrics), comments, batchSize, 2, metrics);
+    }
+
+    private static List<Comment> newComments(int fromPosition, int toPosition) {
+        final List<Comment> comments = new ArrayList<>();
+
+        for (int position = fromPosition; position <= toPosition; position++) {
+            final CheckstyleError error = new CheckstyleError();
+            error.setSeverityLevel(Severity.ERROR);
+            error.setMessage("new");
+
+            final Comment comment = new Comment();
+            comment.setPath("src/A.java");
+            comment.setPosition(position);
+            comment.setCheckstyleErrors(Collections.singletonList(error));
+            comments.add(comment);
+        }
+
+        return comments;
+    }
+}
@@ -19,64 +19,65 @@ package com.github.unchai.gradle.checkstyle;/*
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map;
 import java.util.Scanner;
 
-import org.junit.Before;
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.kohsuke.github.GHMyself;
-import org.kohsuke.github.GHRepository;
-import org.kohsuke.github.GitHub;
-import org.mockito.junit.MockitoJUnitRunner;
 
-@RunWith(MockitoJUnitRunner.class)
 public class GithubHelperTest {
-    private GithubHelper githubHelper;
-
-    @Before
-    public void setUp() throws IOException {
-        final GitHub github = mock(GitHub.class);
-        final GHMyself ghMyself = mock(GHMyself.class);
-        final GHRepository ghRepository = mock(GHRepository.class);
-
-        when(github.getMyself()).thenReturn(ghMyself);
-        when(github.getRepository(anyString())).thenReturn(ghRepository);
-
-        githubHelper = new GithubHelper(github, "repo", 1);
-    }
-
     @Test
     public void parsePatchMODIFY() throws IOException {
-        final Map<Integer, Integer> diffMap = githubHelper.parsePatch(readFile("/diff_modify.txt"));
+        final LinePositionIndex diffMap = GithubHelper.parsePatch(readFile("/diff_modify.txt"));
 
         assertThat(diffMap.size(), is(3));
-        assertThat(diffMap.get(27), is(5));
-        assertThat(diffMap.get(35), is(13));
-        assertThat(diffMap.get(36), is(14));
+        assertThat(diffMap.getPosition(27), is(5));
+        assertThat(diffMap.getPosition(35), is(13));
+        assertThat(diffMap.getPosition(36), is(14));
     }
 
     @Test
     public void parsePatchADD() throws IOException {
-        final Map<Integer, Integer> diffMap = githubHelper.parsePatch(readFile("/diff_add.txt"));
+        final LinePositionIndex diffMap = GithubHelper.parsePatch(readFile("/diff_add.txt"));
 
         assertThat(diffMap.size(), is(3));
-        assertThat(diffMap.get(1), is(1));
-        assertThat(diffMap.get(2), is(2));
-        assertThat(diffMap.get(3), is(3));
+        assertThat(diffMap.getPosition(1), is(1));
+        assertThat(diffMap.getPosition(2), is(2));
+        assertThat(diffMap.getPosition(3), is(3));
     }
 
     @Test
     public void parsePatchDELETE() throws IOException {
-        final Map<Integer, Integer> diffMap = githubHelper.parsePatch(readFile("/diff_delete.txt"));
+        final LinePositionIndex diffMap = GithubHelper.parsePatch(readFile("/diff_delete.txt"));
 
         assertThat(diffMap.isEmpty(), is(true));
     }
 
+    @Test
+    public void parsePatchLinesOutsideHunks() throws IOException {
+        final LinePositionIndex diffMap = GithubHelper.parsePatch(readFile("/diff_modify.txt"));
+
+        assertThat(diffMap.contains(26), is(false));
+        assertThat(diffMap.contains(28), is(false));
+        assertThat(diffMap.getPosition(34), is(LinePositionIndex.NO_POSITION));
+        assertThat(diffMap.contains(36), is(true));
+        assertThat(diffMap.contains(37), is(false));
+    }
+
+    @Test
+    public void parsePatchMultipleHunks() {
+        final LinePositionIndex diffMap = GithubHelper.parsePatch(
+            "@@ -1,2 +1,3 @@\r\n a\r\n+b\r\n c\r\n@@ -10 +11,2 @@ class A {\r\n+d\r\n+e\r\n\\ No newline at end of file\r\n"
+        );
+
+        assertThat(diffMap.size(), is(3));
+        assertThat(diffMap.getPosition(2), is(2));
+        assertThat(diffMap.getPosition(11), is(5));
+        assertThat(diffMap.getPosition(12), is(6));
+        assertThat(diffMap.contains(13), is(false));
+    }
+
     private String readFile(String filename) throws IOException {
         try (InputStream in = this.getClass().getResourceAsStream(filename)) {
             final Scanner scanner = new Scanner(in).useDelimiter("\\A");
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+public class GithubHttpServiceTest {
+    @Test
+    public void buildPooledClient() {
+        final OkHttpClient client = GithubHttpService.buildClient(8, 300, 10, 60, null);
+
+        assertThat(client.protocols(), is(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)));
+        assertThat(client.connectTimeoutMillis(), is(10_000));
+        assertThat(client.readTimeoutMillis(), is(60_000));
+
+        final OkHttpClient derived = client.newBuilder().eventListener(new GithubHttpStats()).build();
+
+        assertThat(derived.connectionPool(), is(sameInstance(client.connectionPool())));
+        assertThat(derived.dispatcher(), is(sameInstance(client.dispatcher())));
+    }
+}
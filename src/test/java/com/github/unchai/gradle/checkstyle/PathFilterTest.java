@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class PathFilterTest {
+    @Test
+    public void includeAndExclude() {
+        final PathFilter pathFilter = PathFilter.compile(
+            Collections.singletonList("**/*.java"),
+            Arrays.asList("build/generated/**", "**/test/resources/**", "src/main/java/Legacy.java", "**/*Fixture?.java")
+        );
+
+        assertThat(pathFilter.accepts("src/main/java/A.java"), is(true));
+        assertThat(pathFilter.accepts("A.java"), is(true));
+        assertThat(pathFilter.accepts("src/main/resources/a.xml"), is(false));
+        assertThat(pathFilter.accepts("build/generated/sources/A.java"), is(false));
+        assertThat(pathFilter.accepts("module/build/generated/A.java"), is(true));
+        assertThat(pathFilter.accepts("module/src/test/resources/A.java"), is(false));
+        assertThat(pathFilter.accepts("src/main/java/Legacy.java"), is(false));
+        assertThat(pathFilter.accepts("src/test/java/UserFixture1.java"), is(false));
+        assertThat(pathFilter.accepts("src/test/java/UserFixture10.java"), is(true));
+    }
+
+    @Test
+    public void acceptAllWithoutPatterns() {
+        assertThat(PathFilter.ALL.accepts("any/path.txt"), is(true));
+        assertThat(PathFilter.compile(Collections.emptyList(), Collections.singletonList("**")).accepts("A.java"), is(false));
+        assertThat(PathFilter.compile(Collections.singletonList("src/*/A.java"), null).accepts("src/main/A.java"), is(true));
+        assertThat(PathFilter.compile(Collections.singletonList("src/*/A.java"), null).accepts("src/main/java/A.java"), is(false));
+    }
+}
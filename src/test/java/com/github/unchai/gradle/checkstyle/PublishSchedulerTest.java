@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gradle.api.GradleException;
+import org.junit.Test;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.HttpException;
+
+public class PublishSchedulerTest {
+    private final PublishScheduler scheduler = new PublishScheduler(() -> null, 4, 3, 1);
+
+    @Test
+    public void runAllRequests() {
+        final AtomicInteger sent = new AtomicInteger();
+        final List<PublishScheduler.Request> requests = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            requests.add(sent::incrementAndGet);
+        }
+
+        scheduler.run(requests);
+
+        assertThat(sent.get(), is(20));
+    }
+
+    @Test
+    public void retryOnSecondaryLimit() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        scheduler.run(Collections.singletonList(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new PublishScheduler.SecondaryLimitException(1, null);
+            }
+
+            if (attempts.get() == 2) {
+                throw new HttpException("slow down", 429, "Too Many Requests", "https://api.github.com");
+            }
+        }));
+
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    public void retryOnTooManyRequestsReportedAsNotFound() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        scheduler.run(Collections.singletonList(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw notFound("HTTP/1.1 429 Too Many Requests");
+            }
+        }));
+
+        assertThat(attempts.get(), is(2));
+    }
+
+    @Test
+    public void failWithoutRetryOnNotFound() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            scheduler.run(Collections.singletonList(() -> {
+                attempts.incrementAndGet();
+                throw notFound("HTTP/1.1 404 Not Found");
+            }));
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getCause(), is(instanceOf(GHFileNotFoundException.class)));
+        }
+
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    public void failWithoutRetryOnOtherErrors() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            scheduler.run(Collections.singletonList(() -> {
+                attempts.incrementAndGet();
+                throw new IOException("Not Found");
+            }));
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getMessage(), is("Not Found"));
+        }
+
+        assertThat(attempts.get(), is(1));
+    }
+
+    // github-api turns every 4xx response into a GHFileNotFoundException that only keeps the response headers
+    private static GHFileNotFoundException notFound(String statusLine) {
+        final Map<String, List<String>> headers = new HashMap<>();
+        headers.put(null, Collections.singletonList(statusLine));
+
+        return new GHFileNotFoundException(statusLine) {
+            private static final long serialVersionUID = 1L;
+
+            {
+                responseHeaderFields = headers;
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.gradle.api.GradleException;
+import org.junit.Test;
+
+public class PullRequestsTest {
+    @Test
+    public void parseListsAndRanges() {
+        assertThat(PullRequests.parse("12"), is(Collections.singletonList(12)));
+        assertThat(PullRequests.parse("12, 15,20-23,15"), is(Arrays.asList(12, 15, 20, 21, 22, 23)));
+        assertThat(PullRequests.parse(null).isEmpty(), is(true));
+    }
+
+    @Test(expected = GradleException.class)
+    public void rejectReversedRange() {
+        PullRequests.parse("25-20");
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ReportWriterTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeSarif() throws IOException {
+        final File file = new File(temporaryFolder.getRoot(), "checkstyle.sarif");
+
+        try (ReportWriter writer = new SarifReportWriter(file, "8.29")) {
+            writer.write(error("src/A.java", 3, Severity.WARNING, "'5' is a magic number."));
+            writer.write(error("src/B.java", 7, Severity.ERROR, "Line is longer than 100 characters."));
+        }
+
+        final JsonNode run = new ObjectMapper().readTree(file).get("runs").get(0);
+
+        assertThat(run.get("tool").get("driver").get("version").asText(), is("8.29"));
+        assertThat(run.get("results").size(), is(2));
+        assertThat(run.get("results").get(0).get("level").asText(), is("warning"));
+        assertThat(run.get("results").get(0).get("ruleId").asText(), is("MagicNumberCheck"));
+        assertThat(
+            run.get("results").get(1).get("locations").get(0).get("physicalLocation").get("region").get("startLine").asInt(),
+            is(7)
+        );
+    }
+
+    @Test
+    public void writeCheckstyleXml() throws Exception {
+        final File file = new File(temporaryFolder.getRoot(), "checkstyle.xml");
+
+        try (ReportWriter writer = new CheckstyleXmlReportWriter(file, "8.29")) {
+            writer.write(error("src/A.java", 3, Severity.WARNING, "'5' is a magic number."));
+            writer.write(error("src/A.java", 4, Severity.WARNING, "<'6'> is a magic number."));
+            writer.write(error("src/B.java", 7, Severity.ERROR, "Line is longer than 100 characters."));
+        }
+
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+
+        assertThat(document.getElementsByTagName("file").getLength(), is(2));
+        assertThat(document.getElementsByTagName("error").getLength(), is(3));
+
+        final Element error = (Element)document.getElementsByTagName("error").item(1);
+        assertThat(error.getAttribute("message"), is("<'6'> is a magic number."));
+        assertThat(error.getAttribute("severity"), is("warning"));
+    }
+
+    private static CheckstyleError error(String path, int line, Severity severity, String message) {
+        final CheckstyleError error = new CheckstyleError();
+        error.setPath(path);
+        error.setLine(line);
+        error.setSeverityLevel(severity);
+        error.setMessage(message);
+        error.setSource("MagicNumberCheck");
+        return error;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.unchai.gradle.checkstyle;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ViolationStoreTest {
+    @Test
+    public void storeAcrossChunks() {
+        final ViolationStore store = new ViolationStore();
+
+        for (int i = 0; i < 10000; i++) {
+            store.add(i % 2 == 0 ? Severity.ERROR : Severity.WARNING, "src/A" + i % 3 + ".java", i, "message", "Check");
+        }
+
+        assertThat(store.size(), is(10000));
+        assertThat(store.pathCount(), is(3));
+        assertThat(store.getPath(9999), is("src/A0.java"));
+        assertThat(store.getLine(9999), is(9999));
+        assertThat(store.getSeverity(9999), is(Severity.WARNING));
+        assertThat(store.getMessage(5000), is("message"));
+
+        final Map<Severity, Integer> counts = CheckstyleGithubTask.buildSeverityLevelCountMap(store);
+
+        assertThat(counts.get(Severity.ERROR), is(5000));
+        assertThat(counts.get(Severity.WARNING), is(5000));
+        assertThat(counts.get(Severity.INFO), is(0));
+    }
+
+    @Test
+    public void buildCommentsPerLine() {
+        final ViolationStore store = new ViolationStore();
+        store.add(Severity.WARNING, "src/B.java", 3, "b3", "Check");
+        store.add(Severity.WARNING, "src/A.java", 2, "a2", "Check");
+        store.add(Severity.ERROR, "src/B.java", 1, "b1", "Check");
+        store.add(Severity.ERROR, "src/B.java", 3, "b3'", "Check");
+
+        final RangeLinePositionIndex.Builder builder = new RangeLinePositionIndex.Builder();
+        builder.add(1, 10);
+        builder.add(3, 12);
+
+        final ChangedFile b = new ChangedFile();
+        b.setPath("src/B.java");
+        b.setLinePositionIndex(builder.build());
+
+        final ChangedFile a = new ChangedFile();
+        a.setPath("src/A.java");
+        a.setLinePositionIndex(builder.build());
+
+        final Map<String, ChangedFile> changedFileMap = new HashMap<>();
+        changedFileMap.put(a.getPath(), a);
+        changedFileMap.put(b.getPath(), b);
+
+        final List<Comment> comments = new ArrayList<>(CheckstyleGithubTask.buildComments(changedFileMap, store));
+
+        assertThat(comments.size(), is(3));
+        assertThat(comments.get(0).getPath(), is("src/B.java"));
+        assertThat(comments.get(0).getPosition(), is(10));
+        assertThat(comments.get(1).getPosition(), is(12));
+        assertThat(comments.get(1).getCheckstyleErrors().size(), is(2));
+        assertThat(comments.get(2).getPath(), is("src/A.java"));
+        assertThat(comments.get(2).getCheckstyleErrors(), is(Collections.singletonList(store.get(1))));
+    }
+}